@@ -2,6 +2,7 @@ package ru.practicum.shareit.aop;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingRequestHeaderException;
@@ -24,6 +25,27 @@ public class ControllerAdvice {
 		return new ErrorResponse(HttpStatus.BAD_REQUEST, "Incorrect id", e.getMessage());
 	}
 
+	@ExceptionHandler
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ErrorResponse handleIncorrectCursorException(final IncorrectCursorException e) {
+		log.warn("Bad query: {}", e.getMessage());
+		return new ErrorResponse(HttpStatus.BAD_REQUEST, "Incorrect cursor", e.getMessage());
+	}
+
+	@ExceptionHandler
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ErrorResponse handleIncorrectPageException(final IncorrectPageException e) {
+		log.warn("Bad query: {}", e.getMessage());
+		return new ErrorResponse(HttpStatus.BAD_REQUEST, "Incorrect page", e.getMessage());
+	}
+
+	@ExceptionHandler
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ErrorResponse handleIncorrectIntervalException(final IncorrectIntervalException e) {
+		log.warn("Bad query: {}", e.getMessage());
+		return new ErrorResponse(HttpStatus.BAD_REQUEST, "Incorrect interval", e.getMessage());
+	}
+
 	@ExceptionHandler
 	@ResponseStatus(HttpStatus.NOT_FOUND)
 	public ErrorResponse handleResourceNotFoundException(final ResourceNotFoundException e) {
@@ -40,6 +62,13 @@ public class ControllerAdvice {
 		return new ErrorResponse(HttpStatus.CONFLICT,"Data integrity violation exception", e.getMessage());
 	}
 
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	@ResponseStatus(HttpStatus.CONFLICT)
+	public ErrorResponse handleOptimisticLockingFailureException(final OptimisticLockingFailureException e) {
+		log.warn("Bad query: {}", e.getMessage());
+		return new ErrorResponse(HttpStatus.CONFLICT,"Concurrent modification", e.getMessage());
+	}
+
 	@ExceptionHandler(ConstraintViolationException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ErrorResponse handleConstraintViolationException(final ConstraintViolationException e) {
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.aop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Reruns an idempotent service method in a new transaction when an optimistic lock conflict is detected
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+	int attempts() default 3;
+
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.aop;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+// Ordered before the transaction advice, so every attempt gets its own transaction
+@Aspect
+@Component
+@Order(0)
+@Slf4j
+public class RetryOnConflictAspect {
+
+	@Around("@annotation(retryOnConflict)")
+	public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+		int attempt = 1;
+		while (true) {
+			try {
+				return joinPoint.proceed();
+			} catch (OptimisticLockingFailureException e) {
+				if (attempt >= retryOnConflict.attempts()) {
+					throw e;
+				}
+				log.info("Retry {} after conflict, attempt {}: {}", joinPoint.getSignature().toShortString(),
+						attempt, e.getMessage());
+				attempt++;
+			}
+		}
+	}
+
+}
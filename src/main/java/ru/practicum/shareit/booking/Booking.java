@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class Booking {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+	@SequenceGenerator(name = "bookings_seq", sequenceName = "BOOKINGS_SEQ", allocationSize = 50)
 	@EqualsAndHashCode.Include
 	@Column(name = "BOOKING_ID")
 	private Integer id;
@@ -31,7 +32,12 @@ public class Booking {
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "BOOKER_ID", nullable = false)
 	private User booker;
+	// Copy of the item owner, so owner lists don't join ITEMS
+	@Column(name = "OWNER_ID", nullable = false)
+	private Integer ownerId;
 	@Enumerated(EnumType.STRING)
 	private BookingStatus status;
+	@Version
+	private Integer version;
 
 }
\ No newline at end of file
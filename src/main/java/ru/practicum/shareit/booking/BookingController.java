@@ -3,21 +3,30 @@ package ru.practicum.shareit.booking;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.aop.ErrorResponse;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.exception.IncorrectStatusChangeException;
+import ru.practicum.shareit.booking.exception.ItemBusyException;
 import ru.practicum.shareit.booking.exception.ResourceNotAvailableException;
 import ru.practicum.shareit.booking.exception.SelfBookingException;
 import ru.practicum.shareit.booking.exception.UnknownBookingStateException;
 import ru.practicum.shareit.booking.service.BookingService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
 import java.util.List;
 
 @RestController
@@ -29,6 +38,8 @@ public class BookingController {
 
 	private final BookingService bookService;
 	private static final String USER_HEADER = "X-Sharer-User-Id";
+	private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+	private static final int MAX_BULK_DECISIONS = 1000;
 
 	@PostMapping
 	@Validated
@@ -37,6 +48,13 @@ public class BookingController {
 		return bookService.addBooking(bookingRequestDto, bookerId);
 	}
 
+	@PatchMapping("/bulk")
+	public List<BookingDecisionResultDto> approveBookings(@RequestBody @NotEmpty @Size(max = MAX_BULK_DECISIONS)
+	                                                      List<@Valid BookingDecisionDto> decisions,
+	                                                      @RequestHeader(USER_HEADER) @Positive Integer ownerId) {
+		return bookService.approveBookings(ownerId, decisions);
+	}
+
 	@PatchMapping("/{bookingId}")
 	public BookingResponseDto approveBooking(@PathVariable @Positive Integer bookingId,
 	                                         @RequestHeader(USER_HEADER) @Positive Integer ownerId,
@@ -44,26 +62,49 @@ public class BookingController {
 		return bookService.approveBooking(bookingId, ownerId, approved);
 	}
 
+	// Changes of the user's bookings as server-sent events, the request thread is released once the stream is open
+	@GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamBookingEvents(@RequestHeader(USER_HEADER) @Positive Integer userId) {
+		return bookService.subscribeToEvents(userId);
+	}
+
 	@GetMapping("/{bookingId}")
 	public BookingResponseDto getBooking(@PathVariable @Positive Integer bookingId,
 	                                     @RequestHeader(USER_HEADER) @Positive Integer userId) {
 		return bookService.getBookingById(bookingId, userId);
 	}
 
+	// With a cursor (empty for the first page) the page is sought by keyset and the next cursor is sent in a header
 	@GetMapping()
-	public List<BookingResponseDto> getBookersBookings(@RequestParam(required = false, defaultValue = "ALL") BookingState state,
+	public ResponseEntity<List<BookingResponseDto>> getBookersBookings(@RequestParam(required = false, defaultValue = "ALL") BookingState state,
 	                                                   @RequestParam(required = false) @PositiveOrZero Integer from,
 	                                                   @RequestParam(required = false) @Positive Integer size,
+	                                                   @RequestParam(required = false) String cursor,
 	                                                   @RequestHeader(USER_HEADER) @Positive Integer bookerId) {
-		return bookService.getBookersBookings(bookerId, state, from, size);
+		if (cursor != null) {
+			return toResponse(bookService.getBookersBookingsPage(bookerId, state, cursor, size));
+		}
+		return ResponseEntity.ok(bookService.getBookersBookings(bookerId, state, from, size));
 	}
 
 	@GetMapping("/owner")
-	public List<BookingResponseDto> getOwnersBookings(@RequestParam(required = false, defaultValue = "ALL") BookingState state,
+	public ResponseEntity<List<BookingResponseDto>> getOwnersBookings(@RequestParam(required = false, defaultValue = "ALL") BookingState state,
 	                                                  @RequestParam(required = false) @PositiveOrZero Integer from,
 	                                                  @RequestParam(required = false) @Positive Integer size,
+	                                                  @RequestParam(required = false) String cursor,
 	                                                  @RequestHeader(USER_HEADER) @Positive Integer ownerId) {
-		return bookService.getOwnersBookings(ownerId, state, from, size);
+		if (cursor != null) {
+			return toResponse(bookService.getOwnersBookingsPage(ownerId, state, cursor, size));
+		}
+		return ResponseEntity.ok(bookService.getOwnersBookings(ownerId, state, from, size));
+	}
+
+	private static ResponseEntity<List<BookingResponseDto>> toResponse(BookingPageDto page) {
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (page.getNextCursor() != null) {
+			response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+		}
+		return response.body(page.getBookings());
 	}
 
 	@ExceptionHandler({ResourceNotAvailableException.class})
@@ -73,6 +114,13 @@ public class BookingController {
 		return new ErrorResponse(HttpStatus.BAD_REQUEST,"Conflict operation", e.getMessage());
 	}
 
+	@ExceptionHandler({ItemBusyException.class})
+	@ResponseStatus(HttpStatus.CONFLICT)
+	private ErrorResponse handleItemBusyException(final ItemBusyException e) {
+		log.warn("Bad query: {}", e.getMessage());
+		return new ErrorResponse(HttpStatus.CONFLICT, "Concurrent modification", e.getMessage());
+	}
+
 	@ExceptionHandler({IncorrectStatusChangeException.class})
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	private ErrorResponse handleIncorrectStatusChangeException(final IncorrectStatusChangeException e) {
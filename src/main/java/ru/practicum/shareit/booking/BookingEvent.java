@@ -0,0 +1,38 @@
+package ru.practicum.shareit.booking;
+
+import lombok.*;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// Outbox row, written in the transaction that changes the booking. Rows stay for the retention period, so every
+// instance reads them for its own subscribers
+@Entity
+@Table(name = "BOOKING_EVENTS")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookingEvent {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_events_seq")
+	@SequenceGenerator(name = "booking_events_seq", sequenceName = "BOOKING_EVENTS_SEQ", allocationSize = 50)
+	@EqualsAndHashCode.Include
+	@Column(name = "EVENT_ID")
+	private Long id;
+	@Column(name = "BOOKING_ID", nullable = false)
+	private Integer bookingId;
+	@Column(name = "ITEM_ID", nullable = false)
+	private Integer itemId;
+	@Column(name = "BOOKER_ID", nullable = false)
+	private Integer bookerId;
+	@Column(name = "OWNER_ID", nullable = false)
+	private Integer ownerId;
+	@Enumerated(EnumType.STRING)
+	private BookingStatus status;
+	@Builder.Default
+	private LocalDateTime created = LocalDateTime.now();
+
+}
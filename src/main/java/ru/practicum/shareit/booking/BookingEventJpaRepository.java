@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingEventJpaRepository extends JpaRepository<BookingEvent, Long> {
+
+	List<BookingEvent> findAllByCreatedAfterOrderByIdAsc(LocalDateTime created);
+
+	@Modifying
+	@Query("DELETE FROM BookingEvent e WHERE e.created < :created")
+	int deleteAllCreatedBefore(LocalDateTime created);
+
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.enums.BookingStatus;
+
+import java.time.LocalDateTime;
+
+// Booking with the name of its item, as read from both BOOKINGS and BOOKINGS_HISTORY. History rows are never
+// mapped onto the Booking entity
+public interface BookingHistoryProjection {
+
+	Integer getId();
+
+	LocalDateTime getStart();
+
+	LocalDateTime getEnd();
+
+	BookingStatus getStatus();
+
+	Integer getItemId();
+
+	String getItemName();
+
+	Integer getBookerId();
+
+	Integer getOwnerId();
+
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.utils.PageCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingHistoryRepository {
+
+	// Bookings of the booker or of the owner from both BOOKINGS and BOOKINGS_HISTORY by (start DESC, id DESC),
+	// endedBefore keeps finished bookings only and after seeks past a cursor, null arguments don't restrict
+	List<BookingHistoryProjection> findAllWithHistory(Integer userId, boolean booker, LocalDateTime endedBefore,
+	                                                  PageCursor after, Integer offset, Integer limit);
+
+}
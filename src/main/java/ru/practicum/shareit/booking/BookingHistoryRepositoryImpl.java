@@ -0,0 +1,90 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.utils.PageCursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class BookingHistoryRepositoryImpl implements BookingHistoryRepository {
+
+	// Columns of BookingHistoryProjection in the order they are read, listed so that the two tables don't have
+	// to keep the same column order
+	private static final String BOOKING_COLUMNS = "b.BOOKING_ID, b.START_DATE, b.END_DATE, b.STATUS, b.ITEM_ID, " +
+			"i.NAME, b.BOOKER_ID, b.OWNER_ID";
+
+	private final EntityManager entityManager;
+
+	// Conditions are repeated in both branches of the union, so each table is read through its own index.
+	// Rows are read as plain columns, archived bookings never become managed Booking entities
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<BookingHistoryProjection> findAllWithHistory(Integer userId, boolean booker,
+	                                                         LocalDateTime endedBefore, PageCursor after,
+	                                                         Integer offset, Integer limit) {
+		StringBuilder condition = new StringBuilder(booker ? "b.BOOKER_ID = :userId" : "b.OWNER_ID = :userId");
+		if (endedBefore != null) {
+			condition.append(" AND b.END_DATE < :endedBefore");
+		}
+		if (after != null) {
+			condition.append(" AND (b.START_DATE < :afterStart OR b.START_DATE = :afterStart " +
+					"AND b.BOOKING_ID < :afterId)");
+		}
+		String sql = "SELECT " + BOOKING_COLUMNS + " FROM BOOKINGS b JOIN ITEMS i ON i.ITEM_ID = b.ITEM_ID " +
+				"WHERE " + condition + "\n" +
+				"UNION ALL\n" +
+				"SELECT " + BOOKING_COLUMNS + " FROM BOOKINGS_HISTORY b JOIN ITEMS i ON i.ITEM_ID = b.ITEM_ID " +
+				"WHERE " + condition + "\n" +
+				"ORDER BY START_DATE DESC, BOOKING_ID DESC";
+		Query query = entityManager.createNativeQuery(sql);
+		query.setParameter("userId", userId);
+		if (endedBefore != null) {
+			query.setParameter("endedBefore", endedBefore);
+		}
+		if (after != null) {
+			query.setParameter("afterStart", after.getTimestamp());
+			query.setParameter("afterId", after.getId());
+		}
+		if (offset != null) {
+			query.setFirstResult(offset);
+		}
+		if (limit != null) {
+			query.setMaxResults(limit);
+		}
+		return ((List<Object[]>) query.getResultList()).stream()
+				.map(BookingHistoryRepositoryImpl::mapToProjection)
+				.collect(Collectors.toList());
+	}
+
+	// PRIVATE
+	private static BookingHistoryProjection mapToProjection(Object[] row) {
+		return new BookingRow(((Number) row[0]).intValue(),
+				((Timestamp) row[1]).toLocalDateTime(),
+				((Timestamp) row[2]).toLocalDateTime(),
+				BookingStatus.valueOf(row[3].toString()),
+				((Number) row[4]).intValue(),
+				(String) row[5],
+				((Number) row[6]).intValue(),
+				((Number) row[7]).intValue());
+	}
+
+	@Value
+	private static class BookingRow implements BookingHistoryProjection {
+		Integer id;
+		LocalDateTime start;
+		LocalDateTime end;
+		BookingStatus status;
+		Integer itemId;
+		String itemName;
+		Integer bookerId;
+		Integer ownerId;
+	}
+
+}
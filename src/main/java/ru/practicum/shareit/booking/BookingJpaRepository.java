@@ -1,18 +1,31 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import ru.practicum.shareit.booking.enums.BookingStatus;
-import ru.practicum.shareit.item.entity.Item;
-import ru.practicum.shareit.user.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface BookingJpaRepository extends JpaRepository<Booking, Integer>, QuerydslPredicateExecutor<Booking> {
+public interface BookingJpaRepository extends JpaRepository<Booking, Integer>, QuerydslPredicateExecutor<Booking>,
+		BookingKeysetRepository, BookingHistoryRepository {
 
-	List<Booking> findAllByItemAndBookerAndStatusAndEndIsLessThanOrderByStartDesc(Item item, User booker, BookingStatus bookingStatus, LocalDateTime now);
+	// Each EXISTS is one probe of the (ITEM_ID, BOOKER_ID, STATUS, END_DATE) index, the history is probed
+	// only when the live table has no match
+	String existsFinishedByItemIdAndBookerIdQuery =
+			"SELECT CASE WHEN EXISTS (SELECT 1 FROM BOOKINGS " +
+					"WHERE ITEM_ID = :itemId AND BOOKER_ID = :bookerId AND STATUS = 'APPROVED' AND END_DATE < :now) " +
+			"OR EXISTS (SELECT 1 FROM BOOKINGS_HISTORY " +
+					"WHERE ITEM_ID = :itemId AND BOOKER_ID = :bookerId AND STATUS = 'APPROVED' AND END_DATE < :now) " +
+			"THEN TRUE ELSE FALSE END";
+
+	@Query(nativeQuery = true, value = existsFinishedByItemIdAndBookerIdQuery)
+	boolean existsFinishedByItemIdAndBookerId(Integer itemId, Integer bookerId, LocalDateTime now);
 
 	String findLastAndNextBookingQuery =
 			"SELECT * FROM BOOKINGS " +
@@ -28,8 +41,77 @@ public interface BookingJpaRepository extends JpaRepository<Booking, Integer>, Q
 	@Query(nativeQuery = true, value = findLastAndNextBookingQuery)
 	List<Booking> findLastAndNextBooking(Integer itemId, LocalDateTime now);
 
-	List<Booking> findAllByItemOwnerId(Integer ownerId);
+	// Columns are listed, so the two tables don't have to keep the same column order
+	String bookingStatusColumns = "BOOKING_ID AS id, ITEM_ID AS itemId, BOOKER_ID AS bookerId, STATUS AS status, " +
+			"START_DATE AS start, END_DATE AS \"end\" ";
+
+	String findAllApprovedByItemIdAndPeriodQuery =
+			"SELECT " + bookingStatusColumns + "FROM BOOKINGS " +
+					"WHERE ITEM_ID = :itemId AND STATUS = 'APPROVED' AND START_DATE < :to AND END_DATE > :from\n" +
+			"UNION ALL\n" +
+			"SELECT " + bookingStatusColumns + "FROM BOOKINGS_HISTORY " +
+					"WHERE ITEM_ID = :itemId AND STATUS = 'APPROVED' AND START_DATE < :to AND END_DATE > :from\n" +
+			"ORDER BY start";
+
+	// Approved bookings of the item intersecting the period, by start
+	@Query(nativeQuery = true, value = findAllApprovedByItemIdAndPeriodQuery)
+	List<BookingStatusProjection> findAllApprovedByItemIdAndPeriod(Integer itemId, LocalDateTime from,
+	                                                               LocalDateTime to);
+
+	// Read through BOOKINGS_END_DATE_IDX, the history holds bookings that finished long before
+	@Query(nativeQuery = true, value = "SELECT " + bookingStatusColumns + "FROM BOOKINGS " +
+			"WHERE STATUS = 'APPROVED' AND END_DATE >= :from AND END_DATE < :to")
+	List<BookingStatusProjection> findAllApprovedEndedBetween(LocalDateTime from, LocalDateTime to);
+
+	@Query(nativeQuery = true, value = "SELECT H.BOOKING_ID AS id, H.START_DATE AS start, H.END_DATE AS \"end\", " +
+			"H.STATUS AS status, H.ITEM_ID AS itemId, I.NAME AS itemName, H.BOOKER_ID AS bookerId, " +
+			"H.OWNER_ID AS ownerId " +
+			"FROM BOOKINGS_HISTORY H JOIN ITEMS I ON I.ITEM_ID = H.ITEM_ID WHERE H.BOOKING_ID = :bookingId")
+	Optional<BookingHistoryProjection> findArchivedById(Integer bookingId);
+
+	@Query("SELECT b.item.id FROM Booking b WHERE b.id = :bookingId")
+	Optional<Integer> findItemIdById(Integer bookingId);
+
+	List<Booking> findAllByStatusAndEndIsAfter(BookingStatus status, LocalDateTime now);
+
+	// Ownership is checked by the copied owner id, bookings of other owners are simply not returned
+	@Query("SELECT b.id AS id, b.item.id AS itemId, b.booker.id AS bookerId, b.status AS status, " +
+			"b.start AS start, b.end AS end FROM Booking b WHERE b.id IN :ids AND b.ownerId = :ownerId")
+	List<BookingStatusProjection> findAllStatusesByIdInAndOwnerId(Collection<Integer> ids, Integer ownerId);
+
+	@Query("SELECT b.id AS id, b.item.id AS itemId, b.booker.id AS bookerId, b.status AS status, " +
+			"b.start AS start, b.end AS end FROM Booking b WHERE b.item.id IN :itemIds AND b.status = :status AND b.start < :end AND b.end > :start")
+	List<BookingStatusProjection> findAllStatusesByItemIdInAndStatusAndPeriod(Collection<Integer> itemIds,
+	                                                                           BookingStatus status,
+	                                                                           LocalDateTime start,
+	                                                                           LocalDateTime end);
+
+	// Bookings changed since they were read keep their status, the caller compares the count
+	@Modifying(flushAutomatically = true)
+	@Query("UPDATE Booking b SET b.status = :status, b.version = b.version + 1 " +
+			"WHERE b.id IN :ids AND b.status = :expectedStatus")
+	int updateStatusByIdIn(Collection<Integer> ids, BookingStatus status, BookingStatus expectedStatus);
+
+	boolean existsByItemIdAndStatusAndStartIsBeforeAndEndIsAfter(Integer itemId, BookingStatus status,
+	                                                            LocalDateTime end, LocalDateTime start);
+
+	// Bookers are fetched as well, their ids are copied into the cached booking pointers
+	@EntityGraph(attributePaths = "booker")
+	List<Booking> findAllWithBookerByIdIn(Collection<Integer> ids);
+
+	// Bookings pointed to by items stay in BOOKINGS, so the pointers never reference the archive
+	@Query(nativeQuery = true, value = "SELECT B.BOOKING_ID FROM BOOKINGS B " +
+			"WHERE B.END_DATE < :endedBefore " +
+			"AND NOT EXISTS (SELECT 1 FROM ITEMS I WHERE I.LAST_BOOKING_ID = B.BOOKING_ID) " +
+			"AND NOT EXISTS (SELECT 1 FROM ITEMS I WHERE I.NEXT_BOOKING_ID = B.BOOKING_ID) " +
+			"ORDER BY B.END_DATE LIMIT :limit FOR UPDATE")
+	List<Integer> findIdsToArchiveForUpdate(LocalDateTime endedBefore, int limit);
 
-	List<Booking> findAllByItemIn(List<Item> itemList);
+	@Modifying
+	@Query(nativeQuery = true, value = "INSERT INTO BOOKINGS_HISTORY " +
+			"(BOOKING_ID, START_DATE, END_DATE, ITEM_ID, BOOKER_ID, OWNER_ID, STATUS, VERSION) " +
+			"SELECT BOOKING_ID, START_DATE, END_DATE, ITEM_ID, BOOKER_ID, OWNER_ID, STATUS, VERSION " +
+			"FROM BOOKINGS WHERE BOOKING_ID IN :ids")
+	int copyToHistory(Collection<Integer> ids);
 
 }
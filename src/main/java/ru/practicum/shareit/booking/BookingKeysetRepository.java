@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking;
+
+import com.querydsl.core.types.Predicate;
+
+import java.util.List;
+
+public interface BookingKeysetRepository {
+
+	// First limit bookings by (start DESC, id DESC), without the count query of a Page
+	List<Booking> findFirstByStartDesc(Predicate predicate, int limit);
+
+}
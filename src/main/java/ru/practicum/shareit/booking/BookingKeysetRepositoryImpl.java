@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class BookingKeysetRepositoryImpl implements BookingKeysetRepository {
+
+	private final EntityManager entityManager;
+
+	@Override
+	public List<Booking> findFirstByStartDesc(Predicate predicate, int limit) {
+		QBooking booking = QBooking.booking;
+		return new JPAQuery<Booking>(entityManager)
+				.select(booking)
+				.from(booking)
+				.where(predicate)
+				.orderBy(booking.start.desc(), booking.id.desc())
+				.limit(limit)
+				.fetch();
+	}
+
+}
@@ -1,12 +1,16 @@
 package ru.practicum.shareit.booking;
 
 import org.modelmapper.ModelMapper;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.booking.dto.BookingPointerDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.dto.BookingShortResponseDto;
+import ru.practicum.shareit.item.dto.item.ItemShortResponseDto;
 import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.dto.UserShortResponseDto;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -20,6 +24,7 @@ public class BookingMapper {
 				.end(bookingRequestDto.getEnd())
 				.item(item)
 				.booker(booker)
+				.ownerId(item.getOwner().getId())
 				.status(BookingStatus.WAITING)
 				.build();
 	}
@@ -28,13 +33,51 @@ public class BookingMapper {
 		return modelMapper.map(booking, BookingResponseDto.class);
 	}
 
+	public static BookingResponseDto mapToBookingDto(BookingHistoryProjection booking) {
+		return BookingResponseDto.builder()
+				.id(booking.getId())
+				.item(new ItemShortResponseDto(booking.getItemId(), booking.getItemName()))
+				.start(booking.getStart())
+				.end(booking.getEnd())
+				.status(booking.getStatus())
+				.booker(new UserShortResponseDto(booking.getBookerId()))
+				.build();
+	}
+
 	public static List<BookingResponseDto> mapToBookingDtoList(List<Booking> bookingList) {
 		return bookingList.stream().map(BookingMapper::mapToBookingDto).collect(Collectors.toList());
 
 	}
 
+	public static List<BookingResponseDto> mapToBookingDtoListFromHistory(List<BookingHistoryProjection> bookingList) {
+		return bookingList.stream().map(BookingMapper::mapToBookingDto).collect(Collectors.toList());
+	}
+
+	public static BookingEvent mapToBookingEvent(Booking booking) {
+		return BookingEvent.builder()
+				.bookingId(booking.getId())
+				.itemId(booking.getItem().getId())
+				.bookerId(booking.getBooker().getId())
+				.ownerId(booking.getOwnerId())
+				.status(booking.getStatus())
+				.build();
+	}
+
+	public static BookingEventDto mapToBookingEventDto(BookingEvent bookingEvent) {
+		return new BookingEventDto(bookingEvent.getBookingId(), bookingEvent.getItemId(), bookingEvent.getBookerId(),
+				bookingEvent.getStatus(), bookingEvent.getCreated());
+	}
+
 	public static BookingShortResponseDto mapToBookingShortDto(Booking booking) {
 		return modelMapper.map(booking, BookingShortResponseDto.class);
 	}
 
+	public static BookingPointerDto mapToBookingPointerDto(Booking booking) {
+		return new BookingPointerDto(booking.getId(), booking.getBooker().getId(), booking.getStart());
+	}
+
+	public static BookingShortResponseDto mapToBookingShortDto(BookingPointerDto booking) {
+		return new BookingShortResponseDto(booking.getId(), booking.getBookerId());
+	}
+
 }
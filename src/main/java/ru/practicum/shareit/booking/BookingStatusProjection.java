@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.enums.BookingStatus;
+
+import java.time.LocalDateTime;
+
+public interface BookingStatusProjection {
+
+	Integer getId();
+
+	Integer getItemId();
+
+	Integer getBookerId();
+
+	BookingStatus getStatus();
+
+	LocalDateTime getStart();
+
+	LocalDateTime getEnd();
+
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+// Last or next booking of an item, immutable as it is cached and shared between requests
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor
+public class BookingPointerDto {
+	private final Integer id;
+	private final Integer bookerId;
+	private final LocalDateTime start;
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.booking.exception;
+
+public class ItemBusyException extends RuntimeException {
+	public ItemBusyException(Integer itemId) {
+		super("Item with id " + itemId + " is being changed by another request");
+	}
+}
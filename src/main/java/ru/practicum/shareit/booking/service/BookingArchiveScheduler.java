@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Keeps BOOKINGS small by moving bookings finished long ago to BOOKINGS_HISTORY, one batch per transaction
+@Component
+@RequiredArgsConstructor
+public class BookingArchiveScheduler {
+
+	private final BookingService bookingService;
+
+	@Scheduled(fixedDelayString = "${shareit.booking.archive-interval-ms:3600000}")
+	public void archive() {
+		int archived;
+		do {
+			archived = bookingService.archiveFinishedBookings();
+		} while (archived > 0);
+	}
+
+}
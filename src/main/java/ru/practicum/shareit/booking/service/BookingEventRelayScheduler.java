@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Sends the booking events of committed transactions to the open streams of this instance and purges old events.
+// Turned off where nothing listens, the database is still polled otherwise
+@Component
+@ConditionalOnProperty(name = "shareit.booking.event-relay-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class BookingEventRelayScheduler {
+
+	private final BookingService bookingService;
+
+	@Scheduled(fixedDelayString = "${shareit.booking.event-relay-ms:500}")
+	public void relay() {
+		bookingService.relayBookingEvents();
+	}
+
+	@Scheduled(fixedDelayString = "${shareit.booking.event-purge-interval-ms:60000}")
+	public void purge() {
+		bookingService.purgeBookingEvents();
+	}
+
+}
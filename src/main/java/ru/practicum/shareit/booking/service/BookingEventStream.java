@@ -0,0 +1,151 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.BookingEvent;
+import ru.practicum.shareit.booking.BookingMapper;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Open event streams by user. An emitter holds no servlet thread while idle, the response is completed
+// asynchronously. Each stream queues its events and a small pool writes them in order, so a stalled client
+// holds one pool thread at most and is dropped once its queue is full
+@Component
+@Slf4j
+public class BookingEventStream {
+
+	static final String EVENT_NAME = "booking";
+	static final int MAX_PENDING_EVENTS = 100;
+
+	private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+	private final Map<Long, LocalDateTime> published = new ConcurrentHashMap<>();
+	private final Executor executor;
+
+	@Value("${shareit.booking.stream-timeout-ms:1800000}")
+	private long timeoutMs = 1800000;
+
+	@Autowired
+	public BookingEventStream(@Value("${shareit.booking.stream-threads:4}") int threads) {
+		this(Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "booking-event-stream");
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+
+	BookingEventStream(Executor executor) {
+		this.executor = executor;
+	}
+
+	public SseEmitter subscribe(Integer userId) {
+		SseEmitter emitter = new SseEmitter(timeoutMs);
+		register(userId, emitter);
+		return emitter;
+	}
+
+	// Each event goes to its booker and to the owner of the item once. Events are read again while they are in
+	// the lookback window, so their ids are kept until they leave it
+	public int publish(List<BookingEvent> events, LocalDateTime since) {
+		published.values().removeIf(created -> !created.isAfter(since));
+		int sent = 0;
+		for (BookingEvent event : events) {
+			if (published.putIfAbsent(event.getId(), event.getCreated()) == null) {
+				enqueue(event.getBookerId(), event);
+				enqueue(event.getOwnerId(), event);
+				sent++;
+			}
+		}
+		return sent;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (executor instanceof ExecutorService) {
+			((ExecutorService) executor).shutdownNow();
+		}
+	}
+
+	void register(Integer userId, SseEmitter emitter) {
+		Subscriber subscriber = new Subscriber(userId, emitter);
+		subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+		emitter.onCompletion(() -> unregister(subscriber));
+		emitter.onTimeout(() -> unregister(subscriber));
+		emitter.onError(e -> unregister(subscriber));
+	}
+
+	int getSubscriberCount(Integer userId) {
+		return subscribers.getOrDefault(userId, Set.of()).size();
+	}
+
+	// PRIVATE
+	private void enqueue(Integer userId, BookingEvent event) {
+		for (Subscriber subscriber : subscribers.getOrDefault(userId, Set.of())) {
+			if (!subscriber.pending.offer(event)) {
+				drop(subscriber, new IllegalStateException("Too many pending events"));
+			} else if (subscriber.scheduled.compareAndSet(false, true)) {
+				executor.execute(() -> drain(subscriber));
+			}
+		}
+	}
+
+	// Only one drain per stream runs at a time, it gives up its turn once the queue is seen empty
+	private void drain(Subscriber subscriber) {
+		do {
+			BookingEvent event;
+			while ((event = subscriber.pending.poll()) != null) {
+				try {
+					subscriber.emitter.send(SseEmitter.event()
+							.id(String.valueOf(event.getId()))
+							.name(EVENT_NAME)
+							.data(BookingMapper.mapToBookingEventDto(event)));
+				} catch (IOException | IllegalStateException e) {
+					drop(subscriber, e);
+					return;
+				}
+			}
+			subscriber.scheduled.set(false);
+		} while (!subscriber.pending.isEmpty() && subscriber.scheduled.compareAndSet(false, true));
+	}
+
+	private void drop(Subscriber subscriber, Exception cause) {
+		log.debug("Drop event stream of user {}: {}", subscriber.userId, cause.getMessage());
+		unregister(subscriber);
+		subscriber.pending.clear();
+		subscriber.emitter.completeWithError(cause);
+	}
+
+	private void unregister(Subscriber subscriber) {
+		subscribers.computeIfPresent(subscriber.userId, (id, userSubscribers) -> {
+			userSubscribers.remove(subscriber);
+			return userSubscribers.isEmpty() ? null : userSubscribers;
+		});
+	}
+
+	private static class Subscriber {
+		private final Integer userId;
+		private final SseEmitter emitter;
+		private final Queue<BookingEvent> pending = new ArrayBlockingQueue<>(MAX_PENDING_EVENTS);
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private Subscriber(Integer userId, SseEmitter emitter) {
+			this.userId = userId;
+			this.emitter = emitter;
+		}
+	}
+
+}
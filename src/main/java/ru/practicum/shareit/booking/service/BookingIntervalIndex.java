@@ -0,0 +1,105 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingJpaRepository;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Approved booking intervals of every item, overlapping intervals are merged so the intervals of an item
+// are disjoint and ordered by both start and end
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingIntervalIndex {
+
+	private final BookingJpaRepository bookingJpaRepository;
+
+	private final Map<Integer, NavigableMap<LocalDateTime, LocalDateTime>> intervals = new ConcurrentHashMap<>();
+	private volatile boolean ready;
+
+	// Only bookings that haven't ended yet can collide with new ones
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void warmUp() {
+		List<Booking> bookingList = bookingJpaRepository.findAllByStatusAndEndIsAfter(BookingStatus.APPROVED,
+				LocalDateTime.now());
+		bookingList.forEach(b -> put(b.getItem().getId(), b.getStart(), b.getEnd()));
+		ready = true;
+		log.info("Booking interval index is warmed up with {} bookings", bookingList.size());
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	// The only interval that can overlap [start, end) is the last one starting before end
+	public boolean overlaps(Integer itemId, LocalDateTime start, LocalDateTime end) {
+		NavigableMap<LocalDateTime, LocalDateTime> itemIntervals = intervals.get(itemId);
+		if (itemIntervals == null) {
+			return false;
+		}
+		synchronized (itemIntervals) {
+			Map.Entry<LocalDateTime, LocalDateTime> candidate = itemIntervals.lowerEntry(end);
+			return candidate != null && candidate.getValue().isAfter(start);
+		}
+	}
+
+	// Approved bookings become visible to admission checks only after the surrounding transaction commits
+	public void add(Booking booking) {
+		Integer itemId = booking.getItem().getId();
+		LocalDateTime start = booking.getStart();
+		LocalDateTime end = booking.getEnd();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					put(itemId, start, end);
+				}
+			});
+		} else {
+			put(itemId, start, end);
+		}
+	}
+
+	// PRIVATE
+	private void put(Integer itemId, LocalDateTime start, LocalDateTime end) {
+		NavigableMap<LocalDateTime, LocalDateTime> itemIntervals = intervals.computeIfAbsent(itemId, id -> new TreeMap<>());
+		synchronized (itemIntervals) {
+			LocalDateTime now = LocalDateTime.now();
+			while (!itemIntervals.isEmpty() && !itemIntervals.firstEntry().getValue().isAfter(now)) {
+				itemIntervals.pollFirstEntry();
+			}
+			Map.Entry<LocalDateTime, LocalDateTime> previous = itemIntervals.floorEntry(start);
+			if (previous != null && !previous.getValue().isBefore(start)) {
+				start = previous.getKey();
+				end = max(end, previous.getValue());
+			}
+			Map.Entry<LocalDateTime, LocalDateTime> next = itemIntervals.ceilingEntry(start);
+			while (next != null && !next.getKey().isAfter(end)) {
+				end = max(end, next.getValue());
+				itemIntervals.remove(next.getKey());
+				next = itemIntervals.higherEntry(next.getKey());
+			}
+			itemIntervals.put(start, end);
+		}
+	}
+
+	private static LocalDateTime max(LocalDateTime first, LocalDateTime second) {
+		return first.isAfter(second) ? first : second;
+	}
+
+}
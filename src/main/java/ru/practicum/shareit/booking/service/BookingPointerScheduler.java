@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Moves the last and next booking pointers of items forward once their next booking has started and records
+// the bookings finished since the last run as allowing comments
+@Component
+@RequiredArgsConstructor
+public class BookingPointerScheduler {
+
+	private final BookingService bookingService;
+
+	@Scheduled(fixedDelayString = "${shareit.booking.pointer-roll-forward-ms:60000}")
+	public void rollForward() {
+		bookingService.rollForwardBookingPointers();
+	}
+
+}
@@ -1,12 +1,17 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingPointerDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
-import ru.practicum.shareit.item.entity.Item;
-import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface BookingService {
@@ -15,18 +20,32 @@ public interface BookingService {
 
 	BookingResponseDto approveBooking(Integer bookingId, Integer userId, boolean approved);
 
+	List<BookingDecisionResultDto> approveBookings(Integer ownerId, List<BookingDecisionDto> decisions);
+
 	BookingResponseDto getBookingById(Integer bookingId, Integer userId);
 
 	List<BookingResponseDto> getBookersBookings(Integer bookerId, BookingState state, Integer from, Integer size);
 
 	List<BookingResponseDto> getOwnersBookings(Integer ownerId, BookingState state, Integer from, Integer size);
 
-	List<Booking> getLastAndNextBookingOfItem(Integer itemId);
+	BookingPageDto getBookersBookingsPage(Integer bookerId, BookingState state, String cursor, Integer size);
+
+	BookingPageDto getOwnersBookingsPage(Integer ownerId, BookingState state, String cursor, Integer size);
+
+	List<BookingPointerDto> getLastAndNextBookingOfItem(Integer itemId);
+
+	boolean hasFinishedBooking(Integer itemId, Integer bookerId);
+
+	List<FreeIntervalDto> getFreeIntervals(Integer itemId, LocalDateTime from, LocalDateTime to);
+
+	void rollForwardBookingPointers();
+
+	int archiveFinishedBookings();
 
-	List<Booking> getFinishedBookingsByItemAndBooker(Item item, User booker);
+	SseEmitter subscribeToEvents(Integer userId);
 
-	List<Booking> findAllByItemOwnerId(Integer ownerId);
+	int relayBookingEvents();
 
-	List<Booking> findAllByItems(List<Item> itemList);
+	int purgeBookingEvents();
 
 }
\ No newline at end of file
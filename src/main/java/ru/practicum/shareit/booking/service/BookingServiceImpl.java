@@ -5,13 +5,22 @@ import com.querydsl.core.types.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.aop.RetryOnConflict;
 import ru.practicum.shareit.booking.*;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingPointerDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
 import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.exception.IncorrectStatusChangeException;
@@ -23,21 +32,42 @@ import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.PageCursor;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class BookingServiceImpl implements BookingService {
 
+	private static final int DEFAULT_PAGE_SIZE = 20;
+
 	private final BookingJpaRepository bookingJpaRepository;
+	private final LastAndNextBookingCache lastAndNextBookingCache;
+	private final BookingIntervalIndex bookingIntervalIndex;
+	private final ItemLocks itemLocks;
+	private final ItemAvailabilityCache itemAvailabilityCache;
+	private final BookingEventJpaRepository bookingEventJpaRepository;
+	private final BookingEventStream bookingEventStream;
+	private final CommentEligibilityCache commentEligibilityCache;
 
 	private UserService userService;
 	private ItemService itemService;
 
+	@Value("${shareit.booking.archive-after-days:30}")
+	private int archiveAfterDays = 30;
+	@Value("${shareit.booking.archive-batch-size:500}")
+	private int archiveBatchSize = 500;
+	@Value("${shareit.booking.event-lookback-ms:30000}")
+	private long eventLookbackMs = 30000;
+	@Value("${shareit.booking.event-retention-ms:300000}")
+	private long eventRetentionMs = 300000;
+
 	@Autowired
 	public void setUserService(UserService userService) {
 		this.userService = userService;
@@ -59,15 +89,25 @@ public class BookingServiceImpl implements BookingService {
 		if (booker.equals(item.getOwner())) {
 			throw new SelfBookingException();
 		}
+		checkNoApprovedOverlap(item.getId(), bookingRequestDto.getStart(), bookingRequestDto.getEnd());
 		Booking newBooking = BookingMapper.mapToNewBooking(bookingRequestDto, booker, item);
 		Booking savedBooking = bookingJpaRepository.save(newBooking);
+		bookingEventJpaRepository.save(BookingMapper.mapToBookingEvent(savedBooking));
 		log.info("Create booking by booker {} for item {} with id {}", bookerId, item.getId(), savedBooking.getId());
 		return BookingMapper.mapToBookingDto(savedBooking);
 	}
 
+	@RetryOnConflict
 	@Transactional
 	@Override
 	public BookingResponseDto approveBooking(Integer bookingId, Integer userId, boolean approved) {
+		// Approvals of one item are serialized by the item lock in this instance and by the item row lock
+		// across instances, the booking is read only after both are held. Waiters hold a connection, so
+		// the item lock gives up after a timeout
+		Integer itemId = bookingJpaRepository.findItemIdById(bookingId)
+				.orElseThrow(() -> new ResourceNotFoundException("Booking", bookingId));
+		itemLocks.lockUntilCompletion(itemId);
+		itemService.getItemEntityByIdForUpdate(itemId);
 		Booking booking = getBookingById(bookingId);
 		User user = userService.getUserEntityById(userId);
 		if (!user.equals(booking.getItem().getOwner())) {
@@ -76,62 +116,374 @@ public class BookingServiceImpl implements BookingService {
 		if (!booking.getStatus().equals(BookingStatus.WAITING)) {
 			throw new IncorrectStatusChangeException();
 		}
+		if (approved && bookingJpaRepository.existsByItemIdAndStatusAndStartIsBeforeAndEndIsAfter(itemId,
+				BookingStatus.APPROVED, booking.getEnd(), booking.getStart())) {
+			throw new ResourceNotAvailableException("Item", itemId);
+		}
 		booking.setStatus((approved ? BookingStatus.APPROVED : BookingStatus.REJECTED));
 		Booking savedBooking = bookingJpaRepository.save(booking);
+		bookingEventJpaRepository.save(BookingMapper.mapToBookingEvent(savedBooking));
+		if (approved) {
+			bookingIntervalIndex.add(savedBooking);
+			itemAvailabilityCache.invalidate(itemId);
+			refreshBookingPointers(savedBooking.getItem(), LocalDateTime.now());
+		}
 		log.info((approved ? "Approved" : "Rejected")  + " booking with id {}", bookingId);
 		return BookingMapper.mapToBookingDto(savedBooking);
 	}
 
+	// Ownership and statuses are read by one query and each status is set by one UPDATE, a decision
+	// that can't be applied gets an error in its result instead of failing the others
+	@RetryOnConflict
+	@Transactional
+	@Override
+	public List<BookingDecisionResultDto> approveBookings(Integer ownerId, List<BookingDecisionDto> decisions) {
+		userService.getUserEntityById(ownerId);
+		Set<Integer> bookingIds = decisions.stream()
+				.map(BookingDecisionDto::getBookingId)
+				.collect(Collectors.toSet());
+		Map<Integer, BookingStatusProjection> bookings = bookingJpaRepository
+				.findAllStatusesByIdInAndOwnerId(bookingIds, ownerId)
+				.stream()
+				.collect(Collectors.toMap(BookingStatusProjection::getId, Function.identity()));
+		Set<Integer> itemIds = bookings.values().stream()
+				.map(BookingStatusProjection::getItemId)
+				.collect(Collectors.toSet());
+		itemLocks.lockAllUntilCompletion(itemIds);
+		Map<Integer, Item> items = itemService.getItemEntitiesByIdForUpdate(itemIds).stream()
+				.collect(Collectors.toMap(Item::getId, Function.identity()));
+		Map<Integer, List<BookingStatusProjection>> approvedBookings = getApprovedBookings(decisions, bookings);
+
+		List<BookingDecisionResultDto> results = new ArrayList<>();
+		List<Integer> approvedIds = new ArrayList<>();
+		List<Integer> rejectedIds = new ArrayList<>();
+		Set<Integer> decidedIds = new HashSet<>();
+		for (BookingDecisionDto decision : decisions) {
+			Integer bookingId = decision.getBookingId();
+			BookingStatusProjection booking = bookings.get(bookingId);
+			if (!decidedIds.add(bookingId)) {
+				results.add(new BookingDecisionResultDto(bookingId, null, "Duplicate decision"));
+			} else if (booking == null) {
+				results.add(new BookingDecisionResultDto(bookingId, null, "Booking not found"));
+			} else if (!booking.getStatus().equals(BookingStatus.WAITING)) {
+				results.add(new BookingDecisionResultDto(bookingId, booking.getStatus(), "Incorrect status change"));
+			} else if (!decision.getApproved()) {
+				rejectedIds.add(bookingId);
+				results.add(new BookingDecisionResultDto(bookingId, BookingStatus.REJECTED, null));
+			} else if (overlaps(approvedBookings.get(booking.getItemId()), booking)) {
+				results.add(new BookingDecisionResultDto(bookingId, booking.getStatus(), "Item not available"));
+			} else {
+				approvedIds.add(bookingId);
+				approvedBookings.computeIfAbsent(booking.getItemId(), id -> new ArrayList<>()).add(booking);
+				results.add(new BookingDecisionResultDto(bookingId, BookingStatus.APPROVED, null));
+			}
+		}
+		updateStatus(approvedIds, BookingStatus.APPROVED);
+		updateStatus(rejectedIds, BookingStatus.REJECTED);
+		saveEvents(approvedIds, bookings, ownerId, BookingStatus.APPROVED);
+		saveEvents(rejectedIds, bookings, ownerId, BookingStatus.REJECTED);
+
+		LocalDateTime now = LocalDateTime.now();
+		Set<Integer> approvedItemIds = new HashSet<>();
+		approvedIds.stream().map(bookings::get).forEach(booking -> {
+			Item item = items.get(booking.getItemId());
+			bookingIntervalIndex.add(Booking.builder().item(item).start(booking.getStart()).end(booking.getEnd()).build());
+			approvedItemIds.add(item.getId());
+		});
+		approvedItemIds.forEach(itemId -> {
+			itemAvailabilityCache.invalidate(itemId);
+			refreshBookingPointers(items.get(itemId), now);
+		});
+		log.info("Approved {} and rejected {} bookings of owner {}", approvedIds.size(), rejectedIds.size(), ownerId);
+		return results;
+	}
+
 	@Transactional(readOnly = true)
 	@Override
 	public BookingResponseDto getBookingById(Integer bookingId, Integer userId) {
-		Booking booking = getBookingById(bookingId);
-		User user = userService.getUserEntityById(userId);
-		if (!user.equals(booking.getBooker()) && !user.equals(booking.getItem().getOwner())) {
+		BookingResponseDto bookingResponseDto;
+		Integer ownerId;
+		Optional<Booking> booking = bookingJpaRepository.findById(bookingId);
+		if (booking.isPresent()) {
+			bookingResponseDto = BookingMapper.mapToBookingDto(booking.get());
+			ownerId = booking.get().getOwnerId();
+		} else {
+			BookingHistoryProjection archived = bookingJpaRepository.findArchivedById(bookingId)
+					.orElseThrow(() -> new ResourceNotFoundException("Booking", bookingId));
+			bookingResponseDto = BookingMapper.mapToBookingDto(archived);
+			ownerId = archived.getOwnerId();
+		}
+		userService.getUserEntityById(userId);
+		if (!userId.equals(bookingResponseDto.getBooker().getId()) && !userId.equals(ownerId)) {
 			throw new ResourceNotFoundException("Booking", bookingId);
 		}
-		return BookingMapper.mapToBookingDto(booking);
+		return bookingResponseDto;
 	}
 
 	@Transactional(readOnly = true)
 	@Override
 	public List<BookingResponseDto> getBookersBookings(Integer bookerId, BookingState state, Integer from, Integer size) {
-		User booker = userService.getUserEntityById(bookerId);
-		Predicate predicate = getPredicate(bookerId, state, true);
-		return getBookings(predicate, from, size);
+		userService.getUserEntityById(bookerId);
+		return getBookings(bookerId, state, true, from, size);
 	}
 
 	@Transactional(readOnly = true)
 	@Override
 	public List<BookingResponseDto> getOwnersBookings(Integer ownerId, BookingState state, Integer from, Integer size) {
-		User owner = userService.getUserEntityById(ownerId);
-		Predicate predicate = getPredicate(ownerId, state, false);
-		return getBookings(predicate, from, size);
+		userService.getUserEntityById(ownerId);
+		return getBookings(ownerId, state, false, from, size);
+	}
+
+	@Transactional(readOnly = true)
+	@Override
+	public BookingPageDto getBookersBookingsPage(Integer bookerId, BookingState state, String cursor, Integer size) {
+		userService.getUserEntityById(bookerId);
+		return getBookingPage(bookerId, state, true, cursor, size);
+	}
+
+	@Transactional(readOnly = true)
+	@Override
+	public BookingPageDto getOwnersBookingsPage(Integer ownerId, BookingState state, String cursor, Integer size) {
+		userService.getUserEntityById(ownerId);
+		return getBookingPage(ownerId, state, false, cursor, size);
 	}
 
+	// Reads the bookings the item points to instead of searching the booking history
 	@Override
-	public List<Booking> getLastAndNextBookingOfItem(Integer itemId) {
-		return bookingJpaRepository.findLastAndNextBooking(itemId, LocalDateTime.now());
+	public List<BookingPointerDto> getLastAndNextBookingOfItem(Integer itemId) {
+		LocalDateTime now = LocalDateTime.now();
+		Optional<List<BookingPointerDto>> cachedBookings = lastAndNextBookingCache.get(itemId, now);
+		if (cachedBookings.isPresent()) {
+			return cachedBookings.get();
+		}
+		long generation = lastAndNextBookingCache.generation(itemId);
+		Item item = itemService.getItemEntityById(itemId);
+		List<Integer> bookingIds = new ArrayList<>();
+		if (item.getLastBookingId() != null) {
+			bookingIds.add(item.getLastBookingId());
+		}
+		if (item.getNextBookingId() != null) {
+			bookingIds.add(item.getNextBookingId());
+		}
+		List<BookingPointerDto> bookings = bookingIds.isEmpty() ? Collections.emptyList() :
+				bookingJpaRepository.findAllWithBookerByIdIn(bookingIds)
+						.stream()
+						.map(BookingMapper::mapToBookingPointerDto)
+						.collect(Collectors.toList());
+		// The scheduler moves the pointers on only after the next booking has started, until then the bookings
+		// are read as the scheduler would
+		boolean nextStarted = bookings.stream()
+				.anyMatch(b -> b.getId().equals(item.getNextBookingId()) && !b.getStart().isAfter(now));
+		if (nextStarted) {
+			bookings = findLastAndNextBooking(itemId, now)
+					.stream()
+					.map(BookingMapper::mapToBookingPointerDto)
+					.collect(Collectors.toList());
+		}
+		lastAndNextBookingCache.put(itemId, generation, bookings, now);
+		return bookings;
 	}
 
+	@Transactional
 	@Override
-	public List<Booking> getFinishedBookingsByItemAndBooker(Item item, User booker) {
-		return bookingJpaRepository.findAllByItemAndBookerAndStatusAndEndIsLessThanOrderByStartDesc(item, booker,
-				BookingStatus.APPROVED, LocalDateTime.now());
+	public void rollForwardBookingPointers() {
+		LocalDateTime now = LocalDateTime.now();
+		List<Item> itemList = itemService.getItemsWithStartedNextBooking(now);
+		itemList.forEach(item -> refreshBookingPointers(item, now));
+		if (!itemList.isEmpty()) {
+			log.info("Roll forward booking pointers of {} items", itemList.size());
+		}
+		recordFinishedBookings(now);
 	}
 
 	@Override
-	public List<Booking> findAllByItemOwnerId(Integer ownerId) {
-		return bookingJpaRepository.findAllByItemOwnerId(ownerId);
+	public boolean hasFinishedBooking(Integer itemId, Integer bookerId) {
+		if (commentEligibilityCache.contains(itemId, bookerId)) {
+			return true;
+		}
+		boolean finished = bookingJpaRepository.existsFinishedByItemIdAndBookerId(itemId, bookerId, LocalDateTime.now());
+		if (finished) {
+			commentEligibilityCache.put(itemId, bookerId);
+		}
+		return finished;
 	}
 
+	// Gaps between the approved bookings intersecting the period, bookings are merged as they may touch
+	@Transactional(readOnly = true)
 	@Override
-	public List<Booking> findAllByItems(List<Item> itemList) {
-		return bookingJpaRepository.findAllByItemIn(itemList);
+	public List<FreeIntervalDto> getFreeIntervals(Integer itemId, LocalDateTime from, LocalDateTime to) {
+		Optional<List<FreeIntervalDto>> cachedIntervals = itemAvailabilityCache.get(itemId, from, to);
+		if (cachedIntervals.isPresent()) {
+			return cachedIntervals.get();
+		}
+		long generation = itemAvailabilityCache.generation(itemId);
+		itemService.getItemEntityById(itemId);
+		List<FreeIntervalDto> freeIntervals = new ArrayList<>();
+		LocalDateTime freeFrom = from;
+		for (BookingStatusProjection booking : bookingJpaRepository.findAllApprovedByItemIdAndPeriod(itemId, from, to)) {
+			if (booking.getStart().isAfter(freeFrom)) {
+				freeIntervals.add(new FreeIntervalDto(freeFrom, booking.getStart()));
+			}
+			if (booking.getEnd().isAfter(freeFrom)) {
+				freeFrom = booking.getEnd();
+			}
+		}
+		if (freeFrom.isBefore(to)) {
+			freeIntervals.add(new FreeIntervalDto(freeFrom, to));
+		}
+		itemAvailabilityCache.put(itemId, generation, from, to, freeIntervals);
+		return freeIntervals;
 	}
 
+	// Moves one batch of bookings finished long ago to the history, the rows are locked so that
+	// the copy can't miss a concurrent change
+	@Transactional
+	@Override
+	public int archiveFinishedBookings() {
+		LocalDateTime endedBefore = LocalDateTime.now().minusDays(archiveAfterDays);
+		List<Integer> bookingIds = bookingJpaRepository.findIdsToArchiveForUpdate(endedBefore, archiveBatchSize);
+		if (bookingIds.isEmpty()) {
+			return 0;
+		}
+		bookingJpaRepository.copyToHistory(bookingIds);
+		bookingJpaRepository.deleteAllByIdInBatch(bookingIds);
+		log.info("Archive {} bookings finished before {}", bookingIds.size(), endedBefore);
+		return bookingIds.size();
+	}
+
+	@Transactional(readOnly = true)
+	@Override
+	public SseEmitter subscribeToEvents(Integer userId) {
+		userService.getUserEntityById(userId);
+		return bookingEventStream.subscribe(userId);
+	}
+
+	// Every instance reads the events of the lookback window and sends those it hasn't sent yet to its own
+	// subscribers, so no instance consumes events for the others. Ids come from pooled sequences and don't
+	// follow commit order, the window is what catches a transaction committing late
+	@Transactional(readOnly = true)
+	@Override
+	public int relayBookingEvents() {
+		LocalDateTime since = LocalDateTime.now().minus(eventLookbackMs, ChronoUnit.MILLIS);
+		return bookingEventStream.publish(bookingEventJpaRepository.findAllByCreatedAfterOrderByIdAsc(since), since);
+	}
+
+	// Events are kept past the lookback window of every instance, then any instance may delete them
+	@Transactional
+	@Override
+	public int purgeBookingEvents() {
+		LocalDateTime createdBefore = LocalDateTime.now().minus(eventRetentionMs, ChronoUnit.MILLIS);
+		int purged = bookingEventJpaRepository.deleteAllCreatedBefore(createdBefore);
+		if (purged > 0) {
+			log.info("Purge {} booking events created before {}", purged, createdBefore);
+		}
+		return purged;
+	}
 
 	// PRIVATE
+	private void checkNoApprovedOverlap(Integer itemId, LocalDateTime start, LocalDateTime end) {
+		boolean overlaps = bookingIntervalIndex.isReady() ?
+				bookingIntervalIndex.overlaps(itemId, start, end) :
+				bookingJpaRepository.existsByItemIdAndStatusAndStartIsBeforeAndEndIsAfter(itemId,
+						BookingStatus.APPROVED, end, start);
+		if (overlaps) {
+			throw new ResourceNotAvailableException("Item", itemId);
+		}
+	}
+
+	// Approved bookings of the items that may overlap the bookings to approve, read once for the whole request
+	private Map<Integer, List<BookingStatusProjection>> getApprovedBookings(List<BookingDecisionDto> decisions,
+	                                                                        Map<Integer, BookingStatusProjection> bookings) {
+		List<BookingStatusProjection> toApprove = decisions.stream()
+				.filter(BookingDecisionDto::getApproved)
+				.map(decision -> bookings.get(decision.getBookingId()))
+				.filter(booking -> booking != null && booking.getStatus().equals(BookingStatus.WAITING))
+				.collect(Collectors.toList());
+		if (toApprove.isEmpty()) {
+			return new HashMap<>();
+		}
+		Set<Integer> itemIds = toApprove.stream().map(BookingStatusProjection::getItemId).collect(Collectors.toSet());
+		LocalDateTime start = toApprove.stream().map(BookingStatusProjection::getStart).min(LocalDateTime::compareTo).get();
+		LocalDateTime end = toApprove.stream().map(BookingStatusProjection::getEnd).max(LocalDateTime::compareTo).get();
+		return bookingJpaRepository.findAllStatusesByItemIdInAndStatusAndPeriod(itemIds, BookingStatus.APPROVED, start, end)
+				.stream()
+				.collect(Collectors.groupingBy(BookingStatusProjection::getItemId, Collectors.toCollection(ArrayList::new)));
+	}
+
+	private static boolean overlaps(List<BookingStatusProjection> approvedBookings, BookingStatusProjection booking) {
+		return approvedBookings != null && approvedBookings.stream()
+				.anyMatch(approved -> approved.getStart().isBefore(booking.getEnd())
+						&& approved.getEnd().isAfter(booking.getStart()));
+	}
+
+	private void updateStatus(List<Integer> bookingIds, BookingStatus status) {
+		if (bookingIds.isEmpty()) {
+			return;
+		}
+		int updated = bookingJpaRepository.updateStatusByIdIn(bookingIds, status, BookingStatus.WAITING);
+		if (updated != bookingIds.size()) {
+			throw new ObjectOptimisticLockingFailureException(Booking.class, bookingIds);
+		}
+	}
+
+	private void saveEvents(List<Integer> bookingIds, Map<Integer, BookingStatusProjection> bookings,
+	                        Integer ownerId, BookingStatus status) {
+		bookingEventJpaRepository.saveAll(bookingIds.stream()
+				.map(bookings::get)
+				.map(booking -> BookingEvent.builder()
+						.bookingId(booking.getId())
+						.itemId(booking.getItemId())
+						.bookerId(booking.getBookerId())
+						.ownerId(ownerId)
+						.status(status)
+						.build())
+				.collect(Collectors.toList()));
+	}
+
+	private void refreshBookingPointers(Item item, LocalDateTime now) {
+		Integer lastBookingId = null;
+		Integer nextBookingId = null;
+		for (Booking booking : findLastAndNextBooking(item.getId(), now)) {
+			if (booking.getStart().isAfter(now)) {
+				nextBookingId = booking.getId();
+			} else {
+				lastBookingId = booking.getId();
+			}
+		}
+		item.setLastBookingId(lastBookingId);
+		item.setNextBookingId(nextBookingId);
+		lastAndNextBookingCache.invalidate(item.getId());
+	}
+
+	// Bookers of bookings finished since the last pass may comment from now on, so the first comment
+	// doesn't have to probe BOOKINGS and BOOKINGS_HISTORY
+	private void recordFinishedBookings(LocalDateTime now) {
+		bookingJpaRepository.findAllApprovedEndedBetween(commentEligibilityCache.getRecordedUntil(), now)
+				.forEach(booking -> commentEligibilityCache.put(booking.getItemId(), booking.getBookerId()));
+		commentEligibilityCache.setRecordedUntil(now);
+	}
+
+	// A booking starting right now is the last one, ties on start keep the first booking the query returns
+	private List<Booking> findLastAndNextBooking(Integer itemId, LocalDateTime now) {
+		Booking lastBooking = null;
+		Booking nextBooking = null;
+		for (Booking booking : bookingJpaRepository.findLastAndNextBooking(itemId, now)) {
+			if (booking.getStart().isAfter(now)) {
+				nextBooking = nextBooking != null ? nextBooking : booking;
+			} else {
+				lastBooking = lastBooking != null ? lastBooking : booking;
+			}
+		}
+		List<Booking> bookings = new ArrayList<>();
+		if (lastBooking != null) {
+			bookings.add(lastBooking);
+		}
+		if (nextBooking != null) {
+			bookings.add(nextBooking);
+		}
+		return bookings;
+	}
+
 	private Booking getBookingById(Integer bookingId) {
 		return bookingJpaRepository.findById(bookingId)
 				.orElseThrow(() -> new ResourceNotFoundException("Booking", bookingId));
@@ -145,7 +497,7 @@ public class BookingServiceImpl implements BookingService {
 		if (booker) {
 			predicateList.add(QBooking.booking.booker.id.eq(userId));
 		} else {
-			predicateList.add(QBooking.booking.item.owner.id.eq(userId));
+			predicateList.add(QBooking.booking.ownerId.eq(userId));
 		}
 
 		switch (state) {
@@ -172,6 +524,22 @@ public class BookingServiceImpl implements BookingService {
 
 	}
 
+	// Finished bookings may have been archived, so PAST and ALL read the history as well
+	private static boolean includesHistory(BookingState state) {
+		return state == BookingState.PAST || state == BookingState.ALL;
+	}
+
+	private List<BookingResponseDto> getBookings(Integer userId, BookingState state, boolean booker,
+	                                             Integer from, Integer size) {
+		if (!includesHistory(state)) {
+			return getBookings(getPredicate(userId, state, booker), from, size);
+		}
+		LocalDateTime endedBefore = state == BookingState.PAST ? LocalDateTime.now() : null;
+		Integer offset = from != null ? from / size * size : null;
+		return BookingMapper.mapToBookingDtoListFromHistory(bookingJpaRepository.findAllWithHistory(userId, booker,
+				endedBefore, null, offset, from != null ? size : null));
+	}
+
 	private List<BookingResponseDto> getBookings(Predicate predicate, Integer from, Integer size) {
 		Sort sort = Sort.by(Sort.Direction.DESC, "start");
 		if (from == null) {
@@ -182,6 +550,35 @@ public class BookingServiceImpl implements BookingService {
 		}
 	}
 
+	// Seeks past the cursor instead of skipping rows, one row more than the page tells if there is a next page
+	private BookingPageDto getBookingPage(Integer userId, BookingState state, boolean booker, String cursor,
+	                                      Integer size) {
+		int limit = size != null ? size : DEFAULT_PAGE_SIZE;
+		PageCursor position = PageCursor.decode(cursor);
+		List<BookingResponseDto> bookingList;
+		if (includesHistory(state)) {
+			LocalDateTime endedBefore = state == BookingState.PAST ? LocalDateTime.now() : null;
+			bookingList = BookingMapper.mapToBookingDtoListFromHistory(bookingJpaRepository.findAllWithHistory(userId,
+					booker, endedBefore, position, null, limit + 1));
+		} else {
+			Predicate predicate = getPredicate(userId, state, booker);
+			if (position != null) {
+				QBooking booking = QBooking.booking;
+				predicate = ExpressionUtils.and(predicate, booking.start.lt(position.getTimestamp())
+						.or(booking.start.eq(position.getTimestamp()).and(booking.id.lt(position.getId()))));
+			}
+			bookingList = BookingMapper.mapToBookingDtoList(bookingJpaRepository.findFirstByStartDesc(predicate,
+					limit + 1));
+		}
+		String nextCursor = null;
+		if (bookingList.size() > limit) {
+			bookingList = bookingList.subList(0, limit);
+			BookingResponseDto last = bookingList.get(limit - 1);
+			nextCursor = new PageCursor(last.getStart(), last.getId()).encode();
+		}
+		return new BookingPageDto(bookingList, nextCursor);
+	}
+
 	private List<BookingResponseDto> getBookings(Predicate predicate, Sort sort) {
 		List<Booking> bookingList = (List<Booking>)bookingJpaRepository.findAll(predicate, sort);
 		return BookingMapper.mapToBookingDtoList(bookingList);
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Item and booker pairs known to have a finished approved booking. A finished booking stays finished,
+// so entries are only evicted by size, a pair without one is not cached as its booking may finish any time.
+// Bookings finishing while the application runs are recorded in passes, the end of the last pass is kept here
+@Component
+public class CommentEligibilityCache {
+
+	static final int MAX_ENTRIES = 10000;
+
+	private final Map<Pair, Boolean> entries = new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Pair, Boolean> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private volatile LocalDateTime recordedUntil = LocalDateTime.now();
+
+	public synchronized boolean contains(Integer itemId, Integer bookerId) {
+		return entries.get(new Pair(itemId, bookerId)) != null;
+	}
+
+	public synchronized void put(Integer itemId, Integer bookerId) {
+		entries.put(new Pair(itemId, bookerId), Boolean.TRUE);
+	}
+
+	public LocalDateTime getRecordedUntil() {
+		return recordedUntil;
+	}
+
+	public void setRecordedUntil(LocalDateTime recordedUntil) {
+		this.recordedUntil = recordedUntil;
+	}
+
+	@EqualsAndHashCode
+	@RequiredArgsConstructor
+	private static class Pair {
+		private final Integer itemId;
+		private final Integer bookerId;
+	}
+
+}
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Free intervals of items by requested period. The most recently read items keep their most recently read periods
+// until they are invalidated
+@Component
+public class ItemAvailabilityCache {
+
+	static final int MAX_ITEMS = 1000;
+	static final int MAX_PERIODS_PER_ITEM = 16;
+
+	private final Map<Integer, ItemEntry> entries = new LinkedHashMap<>(MAX_ITEMS, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, ItemEntry> eldest) {
+			return size() > MAX_ITEMS;
+		}
+	};
+	private final ItemGenerations generations = new ItemGenerations();
+
+	public synchronized Optional<List<FreeIntervalDto>> get(Integer itemId, LocalDateTime from, LocalDateTime to) {
+		ItemEntry entry = entries.get(itemId);
+		if (entry == null) {
+			return Optional.empty();
+		}
+		if (entry.getGeneration() != generations.get(itemId)) {
+			entries.remove(itemId);
+			return Optional.empty();
+		}
+		return Optional.ofNullable(entry.getPeriods().get(new Period(from, to)));
+	}
+
+	// Readers take the generation before they read the bookings
+	public long generation(Integer itemId) {
+		return generations.get(itemId);
+	}
+
+	// Intervals read before an invalidation are stored with the old generation, so get never returns them
+	public synchronized void put(Integer itemId, long generation, LocalDateTime from, LocalDateTime to,
+	                             List<FreeIntervalDto> freeIntervals) {
+		ItemEntry entry = entries.get(itemId);
+		if (entry == null || entry.getGeneration() != generation) {
+			entry = new ItemEntry(generation);
+			entries.put(itemId, entry);
+		}
+		entry.getPeriods().put(new Period(from, to), List.copyOf(freeIntervals));
+	}
+
+	// Readers of the surrounding transaction could cache the old answer again, so the generation is advanced
+	// once more after commit
+	public void invalidate(Integer itemId) {
+		advance(itemId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					advance(itemId);
+				}
+			});
+		}
+	}
+
+	private synchronized void advance(Integer itemId) {
+		generations.advance(itemId);
+		entries.remove(itemId);
+	}
+
+	@Getter
+	private static class ItemEntry {
+		private final long generation;
+		private final Map<Period, List<FreeIntervalDto>> periods = new LinkedHashMap<>(MAX_PERIODS_PER_ITEM,
+				0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Period, List<FreeIntervalDto>> eldest) {
+				return size() > MAX_PERIODS_PER_ITEM;
+			}
+		};
+
+		ItemEntry(long generation) {
+			this.generation = generation;
+		}
+	}
+
+	@EqualsAndHashCode
+	@RequiredArgsConstructor
+	private static class Period {
+		private final LocalDateTime from;
+		private final LocalDateTime to;
+	}
+
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Invalidation counters of items, striped like the item locks. A value read at an older generation of its item
+// is stale, items of one stripe only cost each other extra misses
+class ItemGenerations {
+
+	static final int STRIPES = 1024;
+
+	private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+	long get(Integer itemId) {
+		return generations.get(stripeIndex(itemId));
+	}
+
+	void advance(Integer itemId) {
+		generations.incrementAndGet(stripeIndex(itemId));
+	}
+
+	private static int stripeIndex(Integer itemId) {
+		int hash = itemId.hashCode();
+		return Math.floorMod(hash ^ (hash >>> 16), STRIPES);
+	}
+
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.exception.ItemBusyException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Striped locks keyed by item id, items of different stripes never wait for each other. Locks are taken
+// inside the transaction, so a waiter keeps its pooled connection and gives up after the timeout
+@Component
+public class ItemLocks {
+
+	private final Lock[] stripes;
+	private final long timeoutMs;
+
+	public ItemLocks(@Value("${shareit.booking.item-lock-stripes:256}") int stripeCount,
+	                 @Value("${shareit.booking.item-lock-timeout-ms:5000}") long timeoutMs) {
+		this.timeoutMs = timeoutMs;
+		stripes = new Lock[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+	}
+
+	// The lock is held until the surrounding transaction completes, so the next holder sees its changes
+	public void lockUntilCompletion(Integer itemId) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			throw new IllegalStateException("Item lock requires an active transaction");
+		}
+		Lock lock = stripe(itemId);
+		if (!tryLock(lock)) {
+			throw new ItemBusyException(itemId);
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				lock.unlock();
+			}
+		});
+	}
+
+	// Stripes are taken in index order, so holders of several items can't deadlock each other
+	public void lockAllUntilCompletion(Collection<Integer> itemIds) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			throw new IllegalStateException("Item lock requires an active transaction");
+		}
+		List<Lock> locks = new ArrayList<>();
+		itemIds.stream()
+				.sorted(Comparator.comparingInt(this::stripeIndex))
+				.forEach(itemId -> {
+					Lock lock = stripe(itemId);
+					if (locks.contains(lock)) {
+						return;
+					}
+					if (!tryLock(lock)) {
+						locks.forEach(Lock::unlock);
+						throw new ItemBusyException(itemId);
+					}
+					locks.add(lock);
+				});
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				locks.forEach(Lock::unlock);
+			}
+		});
+	}
+
+	private boolean tryLock(Lock lock) {
+		try {
+			return lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	Lock stripe(Integer itemId) {
+		return stripes[stripeIndex(itemId)];
+	}
+
+	private int stripeIndex(Integer itemId) {
+		int hash = itemId.hashCode();
+		return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+	}
+
+}
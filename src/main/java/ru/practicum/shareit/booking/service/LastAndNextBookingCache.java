@@ -0,0 +1,79 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingPointerDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Last and next bookings of items, an entry stays valid until its next booking starts or the item is invalidated
+@Component
+public class LastAndNextBookingCache {
+
+	private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+	private final ItemGenerations generations = new ItemGenerations();
+
+	public Optional<List<BookingPointerDto>> get(Integer itemId, LocalDateTime now) {
+		Entry entry = entries.get(itemId);
+		if (entry == null) {
+			return Optional.empty();
+		}
+		if (entry.getGeneration() != generations.get(itemId)
+				|| entry.getExpiresAt() != null && !now.isBefore(entry.getExpiresAt())) {
+			entries.remove(itemId, entry);
+			return Optional.empty();
+		}
+		return Optional.of(entry.getBookings());
+	}
+
+	// Readers take the generation before they read the bookings
+	public long generation(Integer itemId) {
+		return generations.get(itemId);
+	}
+
+	// Bookings read before an invalidation are stored with the old generation, so get never returns them.
+	// Two started bookings come from pointers not rolled forward yet, such a pair would never expire and isn't kept
+	public void put(Integer itemId, long generation, List<BookingPointerDto> bookings, LocalDateTime now) {
+		if (bookings.stream().filter(booking -> !booking.getStart().isAfter(now)).count() > 1) {
+			return;
+		}
+		LocalDateTime expiresAt = bookings.stream()
+				.map(BookingPointerDto::getStart)
+				.filter(start -> start.isAfter(now))
+				.min(LocalDateTime::compareTo)
+				.orElse(null);
+		entries.put(itemId, new Entry(List.copyOf(bookings), expiresAt, generation));
+	}
+
+	// Readers of the surrounding transaction could cache the old answer again, so the generation is advanced
+	// once more after commit
+	public void invalidate(Integer itemId) {
+		generations.advance(itemId);
+		entries.remove(itemId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					generations.advance(itemId);
+					entries.remove(itemId);
+				}
+			});
+		}
+	}
+
+	@Getter
+	@AllArgsConstructor
+	private static class Entry {
+		private final List<BookingPointerDto> bookings;
+		private final LocalDateTime expiresAt;
+		private final long generation;
+	}
+
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class IncorrectCursorException extends RuntimeException {
+	public IncorrectCursorException(String cursor) {
+		super("Incorrect cursor " + cursor);
+	}
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.exception;
+
+import java.time.LocalDateTime;
+
+public class IncorrectIntervalException extends RuntimeException {
+	public IncorrectIntervalException(LocalDateTime from, LocalDateTime to) {
+		super("Incorrect interval from " + from + " to " + to);
+	}
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class IncorrectPageException extends RuntimeException {
+	public IncorrectPageException(String message) {
+		super(message);
+	}
+}
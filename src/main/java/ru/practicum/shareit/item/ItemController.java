@@ -1,9 +1,11 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.aop.OnCreate;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
 import ru.practicum.shareit.item.dto.comment.CommentRequestDto;
 import ru.practicum.shareit.item.dto.comment.CommentResponseDto;
 import ru.practicum.shareit.item.dto.item.ItemRequestDto;
@@ -15,6 +17,7 @@ import javax.validation.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -55,12 +58,37 @@ public class ItemController {
 
 	@GetMapping("/search")
 	public List<ItemRequestDto> searchItems(@RequestParam String text,
+	                                        @RequestParam(required = false) @PositiveOrZero Integer after,
 	                                        @RequestParam(required = false) @PositiveOrZero Integer from,
-	                                        @RequestParam(required = false) @Positive Integer size) {
+	                                        @RequestParam(required = false) @Positive Integer size,
+	                                        @RequestParam(defaultValue = "false") boolean rank,
+	                                        @RequestParam(defaultValue = "false") boolean fuzzy) {
 		if (text.isBlank()) {
 			return Collections.emptyList();
 		}
-		return itemService.search(text, from, size);
+		if (fuzzy) {
+			return itemService.searchFuzzy(text, from, size);
+		}
+		if (rank) {
+			return itemService.searchRanked(text, from, size);
+		}
+		return itemService.search(text, after, from, size);
+	}
+
+	@GetMapping("/suggest")
+	public List<String> suggestItemNames(@RequestParam String prefix,
+	                                     @RequestParam(required = false) @Positive Integer size) {
+		if (prefix.isBlank()) {
+			return Collections.emptyList();
+		}
+		return itemService.suggest(prefix, size);
+	}
+
+	@GetMapping("/{itemId}/availability")
+	public List<FreeIntervalDto> getAvailability(@PathVariable Integer itemId,
+	                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+	                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+		return itemService.getAvailability(itemId, from, to);
 	}
 
 	@PostMapping("/{itemId}/comment")
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class Comment {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_seq")
+	@SequenceGenerator(name = "comments_seq", sequenceName = "COMMENTS_SEQ", allocationSize = 50)
 	@Column(name = "СOMMENT_ID")
 	@EqualsAndHashCode.Include
 	private Integer id;
@@ -14,7 +14,8 @@ import javax.persistence.*;
 @Builder
 public class Item {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+	@SequenceGenerator(name = "items_seq", sequenceName = "ITEMS_SEQ", allocationSize = 50)
 	@Column(name = "ITEM_ID")
 	@EqualsAndHashCode.Include
 	private Integer id;
@@ -27,4 +28,11 @@ public class Item {
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "REQUEST_ID")
 	private Request request;
+	// Last and next approved bookings, kept current by BookingService
+	@Column(name = "LAST_BOOKING_ID")
+	private Integer lastBookingId;
+	@Column(name = "NEXT_BOOKING_ID")
+	private Integer nextBookingId;
+	@Version
+	private Integer version;
 }
@@ -3,8 +3,8 @@ package ru.practicum.shareit.item.mapper;
 import org.modelmapper.ModelMapper;
 import ru.practicum.shareit.item.dto.item.ItemWithBookingAndCommentsResponseDto;
 import ru.practicum.shareit.item.dto.item.ItemRequestDto;
-import ru.practicum.shareit.item.dto.item.ItemWithBookingResponseDto;
 import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.search.ItemDocument;
 import ru.practicum.shareit.request.Request;
 import ru.practicum.shareit.user.User;
 
@@ -16,6 +16,14 @@ public class ItemMapper {
 
 	private static final ModelMapper modelMapper = new ModelMapper();
 
+	// Booking pointers of the item would otherwise be mapped into bookings without booker
+	static {
+		modelMapper.emptyTypeMap(Item.class, ItemWithBookingAndCommentsResponseDto.class).addMappings(mapper -> {
+			mapper.skip(ItemWithBookingAndCommentsResponseDto::setLastBooking);
+			mapper.skip(ItemWithBookingAndCommentsResponseDto::setNextBooking);
+		}).implicitMappings();
+	}
+
 	public static Item mapToNewItem(ItemRequestDto itemRequestDto, User owner, Request request) {
 		return Item.builder()
 				.name(itemRequestDto.getName())
@@ -26,15 +34,12 @@ public class ItemMapper {
 				.build();
 	}
 
-	public static Item mapToItem(ItemRequestDto itemRequestDto, User owner, Request request) {
-		return Item.builder()
-				.id(itemRequestDto.getId())
-				.name(itemRequestDto.getName())
-				.description(itemRequestDto.getDescription())
-				.available(itemRequestDto.getAvailable())
-				.owner(owner)
-				.request(request)
-				.build();
+	public static Item updateItem(Item item, ItemRequestDto itemRequestDto, Request request) {
+		item.setName(itemRequestDto.getName());
+		item.setDescription(itemRequestDto.getDescription());
+		item.setAvailable(itemRequestDto.getAvailable());
+		item.setRequest(request);
+		return item;
 	}
 
 	public static ItemRequestDto mapToItemDto(Item item) {
@@ -49,8 +54,18 @@ public class ItemMapper {
 		return itemList.stream().map(ItemMapper::mapToItemDto).collect(Collectors.toList());
 	}
 
-	public static ItemWithBookingResponseDto mapToItemWithBookingResponseDto(Item item) {
-		return  modelMapper.map(item, ItemWithBookingResponseDto.class);
+	public static ItemRequestDto mapToItemDto(ItemDocument document) {
+		return ItemRequestDto.builder()
+				.id(document.getId())
+				.name(document.getName())
+				.description(document.getDescription())
+				.available(document.getAvailable())
+				.requestId(document.getRequestId())
+				.build();
+	}
+
+	public static List<ItemRequestDto> mapToItemDtoListFromDocuments(List<ItemDocument> documentList) {
+		return documentList.stream().map(ItemMapper::mapToItemDto).collect(Collectors.toList());
 	}
 
 }
@@ -1,30 +1,89 @@
 package ru.practicum.shareit.item.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.request.Request;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemJpaRepository extends JpaRepository<Item, Integer> {
 
-	List<Item> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIsTrue(String nameSearch,
-	                                                                                             String descSearch);
+	String searchAvailableQuery =
+			"SELECT i FROM Item i " +
+			"WHERE i.available = TRUE AND " +
+			"(UPPER(i.name) LIKE UPPER(CONCAT('%', :#{escape(#text)}, '%')) ESCAPE :#{escapeCharacter()} OR " +
+			"UPPER(i.description) LIKE UPPER(CONCAT('%', :#{escape(#text)}, '%')) ESCAPE :#{escapeCharacter()}) AND " +
+			"i.id > :afterId " +
+			"ORDER BY i.id";
 
-	List<Item> findAllByOwnerId(Integer ownerId);
+	@Query(searchAvailableQuery)
+	List<Item> searchAvailable(String text, Integer afterId, Pageable page);
 
-	Page<Item> findAllByOwnerId(Integer ownerId, Pageable page);
+	// Candidates must contain every trigram of the text, the LIKE check then removes false positives
+	String searchAvailableByTrigramsQuery =
+			"SELECT * FROM ITEMS " +
+			"WHERE ITEM_ID IN (" +
+					"SELECT ITEM_ID FROM ITEM_TRIGRAMS " +
+					"WHERE TRIGRAM IN (:trigrams) " +
+					"GROUP BY ITEM_ID " +
+					"HAVING COUNT(*) = :trigramCount) AND " +
+			"AVAILABLE = TRUE AND " +
+			"ITEM_ID > :afterId AND " +
+			"(LOWER(NAME) LIKE LOWER(CONCAT('%', :#{escape(#text)}, '%')) ESCAPE :#{escapeCharacter()} OR " +
+			"LOWER(DESCRIPTION) LIKE LOWER(CONCAT('%', :#{escape(#text)}, '%')) ESCAPE :#{escapeCharacter()}) " +
+			"ORDER BY ITEM_ID";
+
+	@Query(nativeQuery = true, value = searchAvailableByTrigramsQuery)
+	List<Item> searchAvailableByTrigrams(String text, Collection<String> trigrams, Integer trigramCount,
+	                                     Integer afterId, Pageable page);
+
+	@Query("SELECT i.name FROM Item i WHERE i.available = TRUE")
+	List<String> findAvailableNames();
+
+	// Bookers of the last and next bookings are read through the booking pointers of the item
+	String findAllWithBookingsByOwnerIdQuery =
+			"SELECT I.ITEM_ID AS id, I.NAME AS name, I.DESCRIPTION AS description, I.AVAILABLE AS available, " +
+					"LB.BOOKING_ID AS lastBookingId, LB.BOOKER_ID AS lastBookingBookerId, " +
+					"NB.BOOKING_ID AS nextBookingId, NB.BOOKER_ID AS nextBookingBookerId " +
+			"FROM ITEMS I " +
+			"LEFT JOIN BOOKINGS LB ON LB.BOOKING_ID = I.LAST_BOOKING_ID " +
+			"LEFT JOIN BOOKINGS NB ON NB.BOOKING_ID = I.NEXT_BOOKING_ID " +
+			"WHERE I.OWNER_ID = :ownerId " +
+			"ORDER BY I.ITEM_ID";
+
+	@Query(nativeQuery = true, value = findAllWithBookingsByOwnerIdQuery)
+	List<ItemWithBookingProjection> findAllWithBookingsByOwnerId(Integer ownerId, Pageable page);
+
+	@Query("SELECT i FROM Item i WHERE i.nextBookingId IN (SELECT b.id FROM Booking b WHERE b.start <= :now)")
+	List<Item> findAllWithStartedNextBooking(LocalDateTime now);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT i FROM Item i WHERE i.id = :itemId")
+	Optional<Item> findByIdForUpdate(Integer itemId);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT i FROM Item i WHERE i.id IN :itemIds ORDER BY i.id")
+	List<Item> findAllByIdInForUpdate(Collection<Integer> itemIds);
 
 	List<Item> findAllByRequestId(Integer requestId);
 
-	List<Item> findAllByRequestRequesterId(Integer requestId);
+	List<Item> findAllByAvailableTrue();
 
-	List<Item> findAllByRequestRequesterIdNot(Integer userId);
+	// Requests are fetched with the items, so grouping the items by request needs no further selects
+	@EntityGraph(attributePaths = "request")
+	List<Item> findAllByRequestRequesterId(Integer requestId);
 
+	@EntityGraph(attributePaths = "request")
 	List<Item> findAllByRequestIn(List<Request> requestList);
 
 }
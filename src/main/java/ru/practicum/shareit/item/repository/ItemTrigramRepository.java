@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class ItemTrigramRepository {
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	public void replaceTrigrams(Integer itemId, Collection<String> trigrams) {
+		jdbcTemplate.update("DELETE FROM ITEM_TRIGRAMS WHERE ITEM_ID = :itemId", Map.of("itemId", itemId));
+		SqlParameterSource[] batch = trigrams
+				.stream()
+				.map(trigram -> new MapSqlParameterSource()
+						.addValue("itemId", itemId)
+						.addValue("trigram", trigram))
+				.toArray(SqlParameterSource[]::new);
+		jdbcTemplate.batchUpdate("INSERT INTO ITEM_TRIGRAMS (ITEM_ID, TRIGRAM) VALUES (:itemId, :trigram)", batch);
+	}
+
+}
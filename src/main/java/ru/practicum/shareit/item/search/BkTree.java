@@ -0,0 +1,87 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keys are only added, callers must serialize additions
+class BkTree {
+
+	private volatile Node root;
+
+	void add(String key) {
+		if (root == null) {
+			root = new Node(key);
+			return;
+		}
+		Node node = root;
+		while (true) {
+			int distance = distance(key, node.key);
+			if (distance == 0) {
+				return;
+			}
+			Node child = node.children.get(distance);
+			if (child == null) {
+				node.children.put(distance, new Node(key));
+				return;
+			}
+			node = child;
+		}
+	}
+
+	// Triangle inequality: only children at distance d - max..d + max from a node can hold matches
+	Map<String, Integer> find(String key, int maxDistance) {
+		Map<String, Integer> found = new HashMap<>();
+		Node start = root;
+		if (start == null) {
+			return found;
+		}
+		Deque<Node> nodes = new ArrayDeque<>();
+		nodes.push(start);
+		while (!nodes.isEmpty()) {
+			Node node = nodes.pop();
+			int distance = distance(key, node.key);
+			if (distance <= maxDistance) {
+				found.put(node.key, distance);
+			}
+			for (int d = Math.max(1, distance - maxDistance); d <= distance + maxDistance; d++) {
+				Node child = node.children.get(d);
+				if (child != null) {
+					nodes.push(child);
+				}
+			}
+		}
+		return found;
+	}
+
+	static int distance(String a, String b) {
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()];
+	}
+
+	private static class Node {
+		private final String key;
+		private final Map<Integer, Node> children = new ConcurrentHashMap<>();
+
+		Node(String key) {
+			this.key = key;
+		}
+	}
+
+}
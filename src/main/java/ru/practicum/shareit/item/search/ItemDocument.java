@@ -0,0 +1,77 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.item.entity.Item;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Getter
+@AllArgsConstructor
+public class ItemDocument {
+
+	private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private final Integer id;
+	private final String name;
+	private final String description;
+	private final Boolean available;
+	private final Integer requestId;
+	private final String normalizedName;
+	private final String normalizedDescription;
+	private final Map<String, Integer> nameTerms;
+	private final Map<String, Integer> descriptionTerms;
+	private final int nameLength;
+	private final int descriptionLength;
+
+	public static ItemDocument of(Item item) {
+		String normalizedName = normalize(item.getName());
+		String normalizedDescription = normalize(item.getDescription());
+		List<String> nameTokens = tokenize(normalizedName);
+		List<String> descriptionTokens = tokenize(normalizedDescription);
+		return new ItemDocument(item.getId(),
+				item.getName(),
+				item.getDescription(),
+				item.getAvailable(),
+				item.getRequest() != null ? item.getRequest().getId() : null,
+				normalizedName,
+				normalizedDescription,
+				termFrequencies(nameTokens),
+				termFrequencies(descriptionTokens),
+				nameTokens.size(),
+				descriptionTokens.size());
+	}
+
+	public boolean isSearchable() {
+		return Boolean.TRUE.equals(available);
+	}
+
+	public boolean matches(String normalizedText) {
+		return normalizedName.contains(normalizedText) || normalizedDescription.contains(normalizedText);
+	}
+
+	public Set<String> getTerms() {
+		Set<String> terms = new HashSet<>(nameTerms.keySet());
+		terms.addAll(descriptionTerms.keySet());
+		return terms;
+	}
+
+	public static String normalize(String text) {
+		return text == null ? "" : text.toLowerCase(Locale.ROOT);
+	}
+
+	public static List<String> tokenize(String normalizedText) {
+		return Arrays.stream(TOKEN_SEPARATOR.split(normalizedText))
+				.filter(token -> !token.isEmpty())
+				.collect(Collectors.toList());
+	}
+
+	private static Map<String, Integer> termFrequencies(List<String> tokens) {
+		Map<String, Integer> frequencies = new HashMap<>();
+		tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+		return Collections.unmodifiableMap(frequencies);
+	}
+
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+@Slf4j
+public class ItemNameSuggester {
+
+	public static final int MAX_SUGGESTIONS = 10;
+
+	private final ItemJpaRepository itemRepository;
+	private final long rebuildDelayMillis;
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "item-name-suggester");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+	private volatile NameTrie trie = NameTrie.EMPTY;
+
+	public ItemNameSuggester(ItemJpaRepository itemRepository,
+	                         @Value("${shareit.search.suggest-rebuild-delay-ms:1000}") long rebuildDelayMillis) {
+		this.itemRepository = itemRepository;
+		this.rebuildDelayMillis = rebuildDelayMillis;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		scheduleRebuild(0);
+	}
+
+	// Changes made in one transaction, or in a burst of them, cost a single rebuild after commit
+	public void requestRebuild() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					scheduleRebuild(rebuildDelayMillis);
+				}
+			});
+		} else {
+			scheduleRebuild(rebuildDelayMillis);
+		}
+	}
+
+	public List<String> suggest(String prefix, int size) {
+		return trie.suggest(ItemDocument.normalize(prefix).stripLeading(), Math.min(size, MAX_SUGGESTIONS));
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	void rebuild() {
+		rebuildScheduled.set(false);
+		try {
+			List<String> names = itemRepository.findAvailableNames();
+			trie = NameTrie.build(names, MAX_SUGGESTIONS);
+			log.debug("Item name suggestions rebuilt from {} names", names.size());
+		} catch (RuntimeException e) {
+			log.warn("Item name suggestions were not rebuilt: {}", e.getMessage());
+		}
+	}
+
+	// PRIVATE
+	private void scheduleRebuild(long delayMillis) {
+		if (rebuildScheduled.compareAndSet(false, true)) {
+			executor.schedule(this::rebuild, delayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+}
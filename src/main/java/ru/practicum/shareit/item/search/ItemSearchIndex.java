@@ -0,0 +1,279 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ItemSearchIndex {
+
+	// Ranked pages end here, deeper pages would need a heap as large as the offset
+	public static final int MAX_RANKED_RESULTS = 1000;
+
+	private final ItemJpaRepository itemRepository;
+
+	private final Map<Integer, ItemDocument> documents = new ConcurrentHashMap<>();
+	private final Map<String, Set<Integer>> postings = new ConcurrentHashMap<>();
+	// Terms of the postings by their trigrams, terms too short for a trigram are kept apart
+	private final Map<String, Set<String>> termsByTrigram = new ConcurrentHashMap<>();
+	private final Set<String> shortTerms = ConcurrentHashMap.newKeySet();
+	private final TermStatistics termStatistics = new TermStatistics();
+	private final BkTree nameVocabulary = new BkTree();
+	private final Map<String, Set<String>> foldedNameTerms = new ConcurrentHashMap<>();
+	private volatile boolean ready;
+
+	// Several application instances can't share this index, they should search in the database instead
+	@Value("${shareit.search.in-memory-index:true}")
+	private boolean enabled = true;
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void warmUp() {
+		if (!enabled) {
+			log.info("Item search index is disabled, items are searched in the database");
+			return;
+		}
+		List<Item> itemList = itemRepository.findAll();
+		itemList.forEach(item -> put(ItemDocument.of(item)));
+		ready = true;
+		log.info("Item search index is warmed up with {} items", itemList.size());
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	// Changes become visible to readers only after the surrounding transaction commits
+	public void index(Item item) {
+		if (!enabled) {
+			return;
+		}
+		ItemDocument document = ItemDocument.of(item);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					put(document);
+				}
+			});
+		} else {
+			put(document);
+		}
+	}
+
+	// Matches are returned in ITEM_ID order and verified lazily, so only the requested page is checked
+	public List<ItemDocument> search(String text, Integer afterId, Integer from, Integer size) {
+		String normalizedText = ItemDocument.normalize(text);
+		int lowerBound = afterId != null ? afterId : Integer.MIN_VALUE;
+		Stream<ItemDocument> matches = candidates(normalizedText)
+				.stream()
+				.filter(id -> id > lowerBound)
+				.sorted()
+				.map(documents::get)
+				.filter(d -> d != null && d.isSearchable() && d.matches(normalizedText));
+		if (from != null) {
+			matches = matches.skip(from);
+		}
+		if (size != null) {
+			matches = matches.limit(size);
+		}
+		return matches.collect(Collectors.toList());
+	}
+
+	// Postings are scored as they are read and only the best from + size matches are kept, however many items
+	// match. A document reached through several terms is skipped once it is in the heap or worse than its bottom
+	public List<ItemDocument> searchRanked(String text, int from, int size) {
+		if (from >= MAX_RANKED_RESULTS) {
+			return Collections.emptyList();
+		}
+		String normalizedText = ItemDocument.normalize(text);
+		List<String> queryTokens = ItemDocument.tokenize(normalizedText);
+		int capacity = (int) Math.min((long) from + size, MAX_RANKED_RESULTS);
+		Comparator<ScoredDocument> worstFirst = Comparator.comparingDouble(ScoredDocument::getScore)
+				.thenComparing(scored -> scored.getDocument().getId(), Comparator.reverseOrder());
+		PriorityQueue<ScoredDocument> top = new PriorityQueue<>(worstFirst);
+		Set<Integer> topIds = new HashSet<>();
+		forEachCandidate(normalizedText, id -> {
+			ItemDocument document = documents.get(id);
+			if (topIds.contains(id) || document == null || !document.isSearchable()
+					|| !document.matches(normalizedText)) {
+				return;
+			}
+			ScoredDocument scored = new ScoredDocument(document, termStatistics.score(document, queryTokens));
+			if (top.size() == capacity && worstFirst.compare(scored, top.peek()) <= 0) {
+				return;
+			}
+			top.offer(scored);
+			topIds.add(id);
+			if (top.size() > capacity) {
+				topIds.remove(top.poll().getDocument().getId());
+			}
+		});
+		List<ScoredDocument> ranked = new ArrayList<>(top);
+		ranked.sort(worstFirst.reversed());
+		return ranked.stream()
+				.skip(from)
+				.map(ScoredDocument::getDocument)
+				.collect(Collectors.toList());
+	}
+
+	// Every token of the text has to be within a small edit distance of some term of the item name
+	public List<ItemDocument> searchFuzzy(String text, int from, int size) {
+		List<String> tokens = ItemDocument.tokenize(ItemDocument.normalize(text));
+		if (tokens.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Map<Integer, Integer> distances = null;
+		for (String token : tokens) {
+			Map<Integer, Integer> tokenDistances = fuzzyNameMatches(Transliteration.fold(token));
+			if (distances == null) {
+				distances = tokenDistances;
+			} else {
+				distances.keySet().retainAll(tokenDistances.keySet());
+				distances.replaceAll((id, distance) -> distance + tokenDistances.get(id));
+			}
+		}
+		return distances.entrySet()
+				.stream()
+				.sorted(Map.Entry.<Integer, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+				.skip(from)
+				.limit(size)
+				.map(entry -> documents.get(entry.getKey()))
+				.collect(Collectors.toList());
+	}
+
+	// PRIVATE
+	private Map<Integer, Integer> fuzzyNameMatches(String foldedToken) {
+		Map<Integer, Integer> distances = new HashMap<>();
+		nameVocabulary.find(foldedToken, maxEditDistance(foldedToken)).forEach((key, distance) ->
+				foldedNameTerms.getOrDefault(key, Collections.emptySet()).forEach(term ->
+						postings.getOrDefault(term, Collections.emptySet()).forEach(id -> {
+							ItemDocument document = documents.get(id);
+							if (document != null && document.isSearchable() && document.getNameTerms().containsKey(term)) {
+								distances.merge(id, distance, Math::min);
+							}
+						})));
+		return distances;
+	}
+
+	private static int maxEditDistance(String foldedToken) {
+		if (foldedToken.length() <= 2) {
+			return 0;
+		}
+		return foldedToken.length() <= 5 ? 1 : 2;
+	}
+
+	private synchronized void put(ItemDocument document) {
+		ItemDocument previous = documents.put(document.getId(), document);
+		if (previous != null) {
+			termStatistics.remove(previous);
+		}
+		termStatistics.add(document);
+		Set<String> previousTerms = previous != null ? previous.getTerms() : Collections.emptySet();
+		Set<String> terms = document.getTerms();
+		previousTerms.stream()
+				.filter(term -> !terms.contains(term))
+				.forEach(term -> {
+					Set<Integer> ids = postings.computeIfPresent(term, (t, termIds) -> {
+						termIds.remove(document.getId());
+						return termIds.isEmpty() ? null : termIds;
+					});
+					if (ids == null) {
+						removeTerm(term);
+					}
+				});
+		terms.forEach(term -> postings.computeIfAbsent(term, t -> {
+			addTerm(t);
+			return ConcurrentHashMap.newKeySet();
+		}).add(document.getId()));
+		// The tree is append-only, terms that left the catalogue are skipped through their empty postings
+		document.getNameTerms().keySet().forEach(term -> {
+			String folded = Transliteration.fold(term);
+			foldedNameTerms.computeIfAbsent(folded, f -> ConcurrentHashMap.newKeySet()).add(term);
+			nameVocabulary.add(folded);
+		});
+	}
+
+	private Collection<Integer> candidates(String normalizedText) {
+		Set<Integer> candidateIds = new HashSet<>();
+		forEachCandidate(normalizedText, candidateIds::add);
+		return candidateIds;
+	}
+
+	// Any item containing the text also contains its longest token inside one of its own terms. An id can be
+	// passed more than once, when several of its terms contain the token
+	private void forEachCandidate(String normalizedText, Consumer<Integer> action) {
+		Optional<String> probe = ItemDocument.tokenize(normalizedText).stream().max(Comparator.comparingInt(String::length));
+		if (probe.isEmpty()) {
+			documents.keySet().forEach(action);
+			return;
+		}
+		forEachTermContaining(probe.get(), term -> postings.getOrDefault(term, Collections.emptySet()).forEach(action));
+	}
+
+	// A term containing the probe has every trigram of the probe, so the rarest trigram narrows the terms to
+	// verify. A probe shorter than a trigram is looked up among the trigrams themselves
+	private void forEachTermContaining(String probe, Consumer<String> action) {
+		Set<String> probeTrigrams = Trigrams.of(probe);
+		if (probeTrigrams.isEmpty()) {
+			termsByTrigram.forEach((trigram, trigramTerms) -> {
+				if (trigram.contains(probe)) {
+					trigramTerms.forEach(action);
+				}
+			});
+			shortTerms.stream().filter(term -> term.contains(probe)).forEach(action);
+			return;
+		}
+		probeTrigrams.stream()
+				.map(trigram -> termsByTrigram.getOrDefault(trigram, Collections.emptySet()))
+				.min(Comparator.comparingInt(Set::size))
+				.ifPresent(terms -> terms.stream().filter(term -> term.contains(probe)).forEach(action));
+	}
+
+	private void addTerm(String term) {
+		Set<String> trigrams = Trigrams.of(term);
+		if (trigrams.isEmpty()) {
+			shortTerms.add(term);
+		}
+		trigrams.forEach(trigram -> termsByTrigram.computeIfAbsent(trigram, t -> ConcurrentHashMap.newKeySet())
+				.add(term));
+	}
+
+	private void removeTerm(String term) {
+		shortTerms.remove(term);
+		Trigrams.of(term).forEach(trigram -> termsByTrigram.computeIfPresent(trigram, (t, terms) -> {
+			terms.remove(term);
+			return terms.isEmpty() ? null : terms;
+		}));
+	}
+
+	@Getter
+	@AllArgsConstructor
+	private static class ScoredDocument {
+		private final ItemDocument document;
+		private final double score;
+	}
+
+}
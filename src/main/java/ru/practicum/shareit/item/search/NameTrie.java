@@ -0,0 +1,134 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Immutable radix tree, every node keeps its best completions so a lookup only walks the prefix
+class NameTrie {
+
+	static final NameTrie EMPTY = build(Collections.emptyList(), 0);
+
+	private final Node root;
+
+	private NameTrie(Node root) {
+		this.root = root;
+	}
+
+	static NameTrie build(Collection<String> names, int maxSuggestions) {
+		Map<String, Completion> completions = new HashMap<>();
+		names.forEach(name -> completions
+				.computeIfAbsent(ItemDocument.normalize(name).strip(), key -> new Completion(key, name.strip()))
+				.count++);
+		completions.remove("");
+		Completion[] sorted = completions.values()
+				.stream()
+				.sorted(Comparator.comparing(completion -> completion.key))
+				.toArray(Completion[]::new);
+		return new NameTrie(build(sorted, 0, sorted.length, 0, "", maxSuggestions));
+	}
+
+	List<String> suggest(String normalizedPrefix, int size) {
+		Node node = root;
+		String rest = normalizedPrefix;
+		while (!rest.isEmpty()) {
+			Node child = node.child(rest.charAt(0));
+			if (child == null) {
+				return Collections.emptyList();
+			}
+			if (rest.startsWith(child.label)) {
+				rest = rest.substring(child.label.length());
+				node = child;
+			} else if (child.label.startsWith(rest)) {
+				node = child;
+				break;
+			} else {
+				return Collections.emptyList();
+			}
+		}
+		return node.top.stream().limit(size).collect(Collectors.toList());
+	}
+
+	// Keys in [from, to) are sorted and share their first depth characters
+	private static Node build(Completion[] keys, int from, int to, int depth, String label, int maxSuggestions) {
+		List<Completion> candidates = new ArrayList<>();
+		if (from < to && keys[from].key.length() == depth) {
+			candidates.add(keys[from]);
+			from++;
+		}
+		List<Node> children = new ArrayList<>();
+		int groupStart = from;
+		while (groupStart < to) {
+			char first = keys[groupStart].key.charAt(depth);
+			int groupEnd = groupStart + 1;
+			while (groupEnd < to && keys[groupEnd].key.charAt(depth) == first) {
+				groupEnd++;
+			}
+			int commonLength = commonPrefixLength(keys[groupStart].key, keys[groupEnd - 1].key);
+			String childLabel = keys[groupStart].key.substring(depth, commonLength);
+			Node child = build(keys, groupStart, groupEnd, commonLength, childLabel, maxSuggestions);
+			children.add(child);
+			candidates.addAll(child.best);
+			groupStart = groupEnd;
+		}
+		List<Completion> best = candidates
+				.stream()
+				.sorted(Comparator.<Completion>comparingInt(completion -> completion.count).reversed()
+						.thenComparing(completion -> completion.key))
+				.limit(maxSuggestions)
+				.collect(Collectors.toList());
+		return new Node(label, children.toArray(new Node[0]), best);
+	}
+
+	private static int commonPrefixLength(String a, String b) {
+		int length = Math.min(a.length(), b.length());
+		int i = 0;
+		while (i < length && a.charAt(i) == b.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	private static class Completion {
+		private final String key;
+		private final String name;
+		private int count;
+
+		Completion(String key, String name) {
+			this.key = key;
+			this.name = name;
+		}
+	}
+
+	private static class Node {
+		private final String label;
+		private final Node[] children;
+		private final List<Completion> best;
+		private final List<String> top;
+
+		Node(String label, Node[] children, List<Completion> best) {
+			this.label = label;
+			this.children = children;
+			this.best = best;
+			this.top = best.stream().map(completion -> completion.name).collect(Collectors.toUnmodifiableList());
+		}
+
+		// Children are sorted by their first character
+		Node child(char c) {
+			int low = 0;
+			int high = children.length - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				char first = children[middle].label.charAt(0);
+				if (first < c) {
+					low = middle + 1;
+				} else if (first > c) {
+					high = middle - 1;
+				} else {
+					return children[middle];
+				}
+			}
+			return null;
+		}
+	}
+
+}
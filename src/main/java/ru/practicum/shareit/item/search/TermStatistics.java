@@ -0,0 +1,79 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// BM25 statistics of the indexed items, name and description are scored as separate fields
+class TermStatistics {
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+	private static final double NAME_WEIGHT = 2.0;
+	private static final double DESCRIPTION_WEIGHT = 1.0;
+
+	private final FieldStatistics name = new FieldStatistics();
+	private final FieldStatistics description = new FieldStatistics();
+	private volatile int documentCount;
+
+	// Callers serialize updates, readers only need a consistent enough snapshot for scoring
+	void add(ItemDocument document) {
+		name.add(document.getNameTerms(), document.getNameLength());
+		description.add(document.getDescriptionTerms(), document.getDescriptionLength());
+		documentCount++;
+	}
+
+	void remove(ItemDocument document) {
+		name.remove(document.getNameTerms(), document.getNameLength());
+		description.remove(document.getDescriptionTerms(), document.getDescriptionLength());
+		documentCount--;
+	}
+
+	// Query tokens score every term of the field that contains them, as the substring search matches them
+	double score(ItemDocument document, Collection<String> queryTokens) {
+		return NAME_WEIGHT * name.score(document.getNameTerms(), document.getNameLength(), queryTokens, documentCount) +
+				DESCRIPTION_WEIGHT * description.score(document.getDescriptionTerms(),
+						document.getDescriptionLength(), queryTokens, documentCount);
+	}
+
+	private static class FieldStatistics {
+
+		private final Map<String, Integer> documentFrequency = new ConcurrentHashMap<>();
+		private volatile long totalLength;
+
+		void add(Map<String, Integer> terms, int length) {
+			terms.keySet().forEach(term -> documentFrequency.merge(term, 1, Integer::sum));
+			totalLength += length;
+		}
+
+		void remove(Map<String, Integer> terms, int length) {
+			terms.keySet().forEach(term -> documentFrequency.computeIfPresent(term, (t, df) -> df > 1 ? df - 1 : null));
+			totalLength -= length;
+		}
+
+		double score(Map<String, Integer> terms, int length, Collection<String> queryTokens, int documentCount) {
+			if (documentCount <= 0 || terms.isEmpty()) {
+				return 0;
+			}
+			double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+			double lengthNorm = K1 * (1 - B + B * length / averageLength);
+			double score = 0;
+			for (String queryToken : queryTokens) {
+				for (Map.Entry<String, Integer> term : terms.entrySet()) {
+					if (term.getKey().contains(queryToken)) {
+						int tf = term.getValue();
+						score += idf(term.getKey(), documentCount) * tf * (K1 + 1) / (tf + lengthNorm);
+					}
+				}
+			}
+			return score;
+		}
+
+		private double idf(String term, int documentCount) {
+			int df = documentFrequency.getOrDefault(term, 0);
+			return Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+		}
+
+	}
+
+}
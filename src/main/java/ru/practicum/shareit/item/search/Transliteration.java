@@ -0,0 +1,27 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Map;
+
+// Folds Cyrillic terms to Latin so that "drel" and "дрель" are neighbours for the fuzzy search
+class Transliteration {
+
+	private static final Map<Character, String> CYRILLIC_TO_LATIN = Map.ofEntries(
+			Map.entry('а', "a"), Map.entry('б', "b"), Map.entry('в', "v"), Map.entry('г', "g"),
+			Map.entry('д', "d"), Map.entry('е', "e"), Map.entry('ё', "e"), Map.entry('ж', "zh"),
+			Map.entry('з', "z"), Map.entry('и', "i"), Map.entry('й', "y"), Map.entry('к', "k"),
+			Map.entry('л', "l"), Map.entry('м', "m"), Map.entry('н', "n"), Map.entry('о', "o"),
+			Map.entry('п', "p"), Map.entry('р', "r"), Map.entry('с', "s"), Map.entry('т', "t"),
+			Map.entry('у', "u"), Map.entry('ф', "f"), Map.entry('х', "kh"), Map.entry('ц', "ts"),
+			Map.entry('ч', "ch"), Map.entry('ш', "sh"), Map.entry('щ', "shch"), Map.entry('ъ', ""),
+			Map.entry('ы', "y"), Map.entry('ь', ""), Map.entry('э', "e"), Map.entry('ю', "yu"),
+			Map.entry('я', "ya"));
+
+	static String fold(String term) {
+		StringBuilder folded = new StringBuilder(term.length());
+		for (char c : term.toCharArray()) {
+			folded.append(CYRILLIC_TO_LATIN.getOrDefault(c, String.valueOf(c)));
+		}
+		return folded.toString();
+	}
+
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class Trigrams {
+
+	private static final int GRAM_LENGTH = 3;
+
+	public static Set<String> of(String normalizedText) {
+		Set<String> trigrams = new HashSet<>();
+		for (int i = 0; i + GRAM_LENGTH <= normalizedText.length(); i++) {
+			trigrams.add(normalizedText.substring(i, i + GRAM_LENGTH));
+		}
+		return trigrams;
+	}
+
+	public static Set<String> of(ItemDocument document) {
+		Set<String> trigrams = of(document.getNormalizedName());
+		trigrams.addAll(of(document.getNormalizedDescription()));
+		return trigrams;
+	}
+
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item.service;
 
 
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
 import ru.practicum.shareit.item.dto.comment.CommentRequestDto;
 import ru.practicum.shareit.item.dto.comment.CommentResponseDto;
 import ru.practicum.shareit.item.dto.item.ItemRequestDto;
@@ -9,6 +10,8 @@ import ru.practicum.shareit.item.dto.item.ItemWithBookingResponseDto;
 import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.request.Request;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -23,9 +26,21 @@ public interface ItemService {
 
 	Item getItemEntityById(int itemId);
 
+	Item getItemEntityByIdForUpdate(int itemId);
+
+	List<Item> getItemEntitiesByIdForUpdate(Collection<Integer> itemIds);
+
 	List<ItemWithBookingResponseDto> getItems(Integer ownerId, Integer from, Integer size);
 
-	List<ItemRequestDto> search(String text, Integer from, Integer size);
+	List<ItemRequestDto> search(String text, Integer afterId, Integer from, Integer size);
+
+	List<ItemRequestDto> searchRanked(String text, Integer from, Integer size);
+
+	List<ItemRequestDto> searchFuzzy(String text, Integer from, Integer size);
+
+	List<String> suggest(String prefix, Integer size);
+
+	List<FreeIntervalDto> getAvailability(Integer itemId, LocalDateTime from, LocalDateTime to);
 
 	CommentResponseDto addComment(Integer itemId, Integer authorId, CommentRequestDto commentRequestDto);
 
@@ -33,8 +48,8 @@ public interface ItemService {
 
 	List<Item> getOwnRequestsItems(Integer requesterId);
 
-	List<Item> getOtherRequestsItems(Integer requesterId);
-
 	List<Item> getItemsByRequestList(List<Request> requestList);
 
+	List<Item> getItemsWithStartedNextBooking(LocalDateTime now);
+
 }
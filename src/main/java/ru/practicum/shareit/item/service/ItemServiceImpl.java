@@ -4,13 +4,16 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.aop.RetryOnConflict;
 import ru.practicum.shareit.booking.BookingMapper;
-import ru.practicum.shareit.booking.dto.BookingShortResponseDto;
+import ru.practicum.shareit.booking.dto.BookingPointerDto;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.IncorrectIntervalException;
+import ru.practicum.shareit.exception.IncorrectPageException;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
 import ru.practicum.shareit.exception.UnauthorizedChangeException;
 import ru.practicum.shareit.exception.UnauthorizedCommentException;
@@ -25,11 +28,17 @@ import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.repository.CommentJpaRepository;
 import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.repository.ItemTrigramRepository;
+import ru.practicum.shareit.item.search.ItemDocument;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.Trigrams;
 import ru.practicum.shareit.request.Request;
 import ru.practicum.shareit.request.service.RequestService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.utils.DtoManager;
+import ru.practicum.shareit.utils.OffsetPageRequest;
 
 
 import java.time.LocalDateTime;
@@ -41,8 +50,13 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ItemServiceImpl implements ItemService {
 
+	private static final int DEFAULT_SEARCH_SIZE = 20;
+
 	private final ItemJpaRepository itemRepository;
 	private final CommentJpaRepository commentJpaRepository;
+	private final ItemTrigramRepository itemTrigramRepository;
+	private final ItemSearchIndex itemSearchIndex;
+	private final ItemNameSuggester itemNameSuggester;
 
 	private UserService userService;
 	private RequestService requestService;
@@ -69,11 +83,22 @@ public class ItemServiceImpl implements ItemService {
 		User owner = userService.getUserEntityById(ownerId);
 		Request request = getRequestFromItemDto(itemRequestDto);
 		Item newItem = ItemMapper.mapToNewItem(itemRequestDto, owner, request);
-		Item savedItem = itemRepository.save(newItem);
+		Item savedItem;
+		if (itemSearchIndex.isEnabled()) {
+			savedItem = itemRepository.save(newItem);
+		} else {
+			// Trigrams are written through JDBC and reference the item row, so the insert can't wait for the commit
+			savedItem = itemRepository.saveAndFlush(newItem);
+			itemTrigramRepository.replaceTrigrams(savedItem.getId(), Trigrams.of(ItemDocument.of(savedItem)));
+		}
+		itemSearchIndex.index(savedItem);
+		itemNameSuggester.requestRebuild();
+		requestService.matchItem(savedItem);
 		log.info("Create item with name {} id {}", savedItem.getName(), savedItem.getId());
 		return ItemMapper.mapToItemDto(savedItem);
 	}
 
+	@RetryOnConflict
 	@Transactional
 	@Override
 	public ItemRequestDto patchItem(Integer itemId, Integer userId, Map<String, String> patch) {
@@ -83,11 +108,21 @@ public class ItemServiceImpl implements ItemService {
 			throw new UnauthorizedChangeException("Item", itemId);
 		}
 		ItemRequestDto itemRequestDto = ItemMapper.mapToItemDto(item);
+		Set<String> trigrams = Trigrams.of(ItemDocument.of(item));
 		ItemRequestDto patchedItemDto = DtoManager.patch(itemRequestDto, patch);
 		DtoManager.validate(patchedItemDto);
 		Request request = getRequestFromItemDto(patchedItemDto);
-		Item pachedItem = ItemMapper.mapToItem(patchedItemDto, user, request);
-		Item savedItem = itemRepository.save(pachedItem);
+		// The managed item is patched in place, so columns the DTO doesn't carry keep their values
+		Item savedItem = itemRepository.save(ItemMapper.updateItem(item, patchedItemDto, request));
+		if (!itemSearchIndex.isEnabled()) {
+			Set<String> patchedTrigrams = Trigrams.of(ItemDocument.of(savedItem));
+			if (!patchedTrigrams.equals(trigrams)) {
+				itemTrigramRepository.replaceTrigrams(itemId, patchedTrigrams);
+			}
+		}
+		itemSearchIndex.index(savedItem);
+		itemNameSuggester.requestRebuild();
+		requestService.matchItem(savedItem);
 		log.info("Patch item with id {}", itemId);
 		return ItemMapper.mapToItemDto(savedItem);
 	}
@@ -96,21 +131,25 @@ public class ItemServiceImpl implements ItemService {
 	@Override
 	public ItemWithBookingAndCommentsResponseDto getItemById(int itemId, int userId) {
 		Item item = getItemEntityById(itemId);
-		List<Comment> comments = commentJpaRepository.findAllByItemOrderByCreatedDesc(item);
+		List<Comment> comments = commentJpaRepository.findAllByItemIdOrderByCreatedDesc(itemId);
 		ItemWithBookingAndCommentsResponseDto itemWithBookingAndCommentsResponseDto = ItemMapper.mapToItemDetailedDto(item);
 		List<ItemWithBookingAndCommentsResponseDto.ItemDetailedCommentDto> commentsDto = CommentMapper
 				.mapToItemDetailedCommentDtoList(comments);
 		itemWithBookingAndCommentsResponseDto.setComments(commentsDto);
 		if (item.getOwner().getId().equals(userId)) {
 			LocalDateTime now = LocalDateTime.now();
-			List<Booking> nextAndLastBooking = bookingService.getLastAndNextBookingOfItem(item.getId());
-					nextAndLastBooking.forEach(b -> {
-				if (b.getStart().isBefore(now)) {
-					itemWithBookingAndCommentsResponseDto.setLastBooking(BookingMapper.mapToBookingShortDto(b));
-				} else if (b.getStart().isAfter(now)) {
-					itemWithBookingAndCommentsResponseDto.setNextBooking(BookingMapper.mapToBookingShortDto(b));
-				}
-			});
+			List<BookingPointerDto> nextAndLastBooking = bookingService.getLastAndNextBookingOfItem(item.getId());
+			// The latest started booking is the last one and the earliest future booking the next one
+			nextAndLastBooking.stream()
+					.filter(b -> !b.getStart().isAfter(now))
+					.max(Comparator.comparing(BookingPointerDto::getStart))
+					.ifPresent(b -> itemWithBookingAndCommentsResponseDto.setLastBooking(
+							BookingMapper.mapToBookingShortDto(b)));
+			nextAndLastBooking.stream()
+					.filter(b -> b.getStart().isAfter(now))
+					.min(Comparator.comparing(BookingPointerDto::getStart))
+					.ifPresent(b -> itemWithBookingAndCommentsResponseDto.setNextBooking(
+							BookingMapper.mapToBookingShortDto(b)));
 		}
 		return itemWithBookingAndCommentsResponseDto;
 	}
@@ -121,53 +160,78 @@ public class ItemServiceImpl implements ItemService {
 		return itemRepository.findById(itemId).orElseThrow(() -> new ResourceNotFoundException("Item", itemId));
 	}
 
-	@Transactional(readOnly = true)
+	@Transactional
 	@Override
-	public List<ItemWithBookingResponseDto> getItems(Integer ownerId, Integer from, Integer size) {
-		User owner = userService.getUserEntityById(ownerId);
-
-		List<Item> itemList;
-		List<Booking> bookingList;
-		if (from == null) {
-			itemList = itemRepository.findAllByOwnerId(ownerId);
-			bookingList = bookingService.findAllByItemOwnerId(ownerId);
-		} else {
-			PageRequest pageRequest = PageRequest.of(from / size, size, Sort.by("id"));
-			itemList = itemRepository.findAllByOwnerId(ownerId, pageRequest).getContent();
-			bookingList = bookingService.findAllByItems(itemList);
-		}
+	public Item getItemEntityByIdForUpdate(int itemId) {
+		return itemRepository.findByIdForUpdate(itemId).orElseThrow(() -> new ResourceNotFoundException("Item", itemId));
+	}
 
-		Comparator<Booking> bookingComparator = Comparator.comparing(Booking::getStart);
-		LocalDateTime now = LocalDateTime.now();
+	@Transactional
+	@Override
+	public List<Item> getItemEntitiesByIdForUpdate(Collection<Integer> itemIds) {
+		return itemIds.isEmpty() ? Collections.emptyList() : itemRepository.findAllByIdInForUpdate(itemIds);
+	}
 
-		Map<Item, List<Booking>> bookingMap = bookingList
+	@Transactional(readOnly = true)
+	@Override
+	public List<ItemWithBookingResponseDto> getItems(Integer ownerId, Integer from, Integer size) {
+		userService.getUserEntityById(ownerId);
+		Pageable pageable = from == null ? Pageable.unpaged() : PageRequest.of(from / size, size);
+		return itemRepository.findAllWithBookingsByOwnerId(ownerId, pageable)
 				.stream()
-				.collect(Collectors.groupingBy(Booking::getItem, Collectors.toCollection(ArrayList::new)));
-
-		List<ItemWithBookingResponseDto> itemsDto = itemList.stream().map(i -> {
-			List<Booking> bookings = bookingMap.getOrDefault(i, Collections.emptyList());
-			Booking lastBooking = bookings.stream().filter(booking -> booking.getStart().isBefore(now)).max(bookingComparator).orElse(null);
-			Booking nextBooking = bookings.stream().filter(booking -> booking.getStart().isAfter(now)).min(bookingComparator).orElse(null);
-
-			ItemWithBookingResponseDto itemWithBookingResponseDto = ItemMapper.mapToItemWithBookingResponseDto(i);
-			BookingShortResponseDto lastBookingShortResponseDto = (lastBooking != null ? BookingMapper.mapToBookingShortDto(lastBooking) : null);
-			BookingShortResponseDto nextBookingShortResponseDto = (nextBooking != null ? BookingMapper.mapToBookingShortDto(nextBooking) : null);
+				.map(ItemWithBookingResponseDto::new)
+				.collect(Collectors.toList());
+	}
 
-			itemWithBookingResponseDto.setLastBooking(lastBookingShortResponseDto);
-			itemWithBookingResponseDto.setNextBooking(nextBookingShortResponseDto);
+	@Transactional(readOnly = true)
+	@Override
+	public List<ItemRequestDto> search(String text, Integer afterId, Integer from, Integer size) {
+		// A missing size gets the default page like the other searches, never the whole catalogue
+		int limit = size != null ? size : DEFAULT_SEARCH_SIZE;
+		if (!itemSearchIndex.isReady()) {
+			return ItemMapper.mapToItemDtoList(searchInDatabase(text, afterId, from, limit));
+		}
+		return ItemMapper.mapToItemDtoListFromDocuments(itemSearchIndex.search(text, afterId, from, limit));
+	}
 
-			return itemWithBookingResponseDto;
-		}).collect(Collectors.toList());
+	@Transactional(readOnly = true)
+	@Override
+	public List<ItemRequestDto> searchRanked(String text, Integer from, Integer size) {
+		int offset = from != null ? from : 0;
+		int limit = size != null ? size : DEFAULT_SEARCH_SIZE;
+		// A deeper page would look like the end of the results, so it is refused instead
+		if (offset >= ItemSearchIndex.MAX_RANKED_RESULTS) {
+			throw new IncorrectPageException("Ranked search returns the first " + ItemSearchIndex.MAX_RANKED_RESULTS +
+					" results, from " + offset + " is beyond them");
+		}
+		if (!itemSearchIndex.isReady()) {
+			return ItemMapper.mapToItemDtoList(searchInDatabase(text, null, offset, limit));
+		}
+		return ItemMapper.mapToItemDtoListFromDocuments(itemSearchIndex.searchRanked(text, offset, limit));
+	}
 
-		return itemsDto;
+	@Transactional(readOnly = true)
+	@Override
+	public List<ItemRequestDto> searchFuzzy(String text, Integer from, Integer size) {
+		int offset = from != null ? from : 0;
+		int limit = size != null ? size : DEFAULT_SEARCH_SIZE;
+		if (!itemSearchIndex.isReady()) {
+			return ItemMapper.mapToItemDtoList(searchInDatabase(text, null, offset, limit));
+		}
+		return ItemMapper.mapToItemDtoListFromDocuments(itemSearchIndex.searchFuzzy(text, offset, limit));
+	}
 
+	@Override
+	public List<String> suggest(String prefix, Integer size) {
+		return itemNameSuggester.suggest(prefix, size != null ? size : ItemNameSuggester.MAX_SUGGESTIONS);
 	}
 
-	@Transactional(readOnly = true)
 	@Override
-	public List<ItemRequestDto> search(String text, Integer from, Integer size) {
-		return ItemMapper.mapToItemDtoList(itemRepository
-				.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIsTrue(text, text));
+	public List<FreeIntervalDto> getAvailability(Integer itemId, LocalDateTime from, LocalDateTime to) {
+		if (!from.isBefore(to)) {
+			throw new IncorrectIntervalException(from, to);
+		}
+		return bookingService.getFreeIntervals(itemId, from, to);
 	}
 
 	@Transactional
@@ -175,8 +239,7 @@ public class ItemServiceImpl implements ItemService {
 	public CommentResponseDto addComment(Integer itemId, Integer authorId, CommentRequestDto commentRequestDto) {
 		Item item = getItemEntityById(itemId);
 		User author = userService.getUserEntityById(authorId);
-		List<Booking> bookings = bookingService.getFinishedBookingsByItemAndBooker(item, author);
-		if (bookings.isEmpty()) {
+		if (!bookingService.hasFinishedBooking(item.getId(), author.getId())) {
 			throw new UnauthorizedCommentException("Comment for item " + itemId + " is not legal");
 		}
 		Comment newComment = Comment.builder()
@@ -200,16 +263,29 @@ public class ItemServiceImpl implements ItemService {
 	}
 
 	@Override
-	public List<Item> getOtherRequestsItems(Integer requesterId) {
-		return itemRepository.findAllByRequestRequesterIdNot(requesterId);
+	public List<Item> getItemsByRequestList(List<Request> requestList) {
+		return itemRepository.findAllByRequestIn(requestList);
 	}
 
 	@Override
-	public List<Item> getItemsByRequestList(List<Request> requestList) {
-		return itemRepository.findAllByRequestIn(requestList);
+	public List<Item> getItemsWithStartedNextBooking(LocalDateTime now) {
+		return itemRepository.findAllWithStartedNextBooking(now);
 	}
 
 	// PRIVATE
+	// ITEM_TRIGRAMS is kept only while the in-memory index is disabled, until the index is warm the plain
+	// query is used
+	private List<Item> searchInDatabase(String text, Integer afterId, Integer from, Integer size) {
+		// Same offset semantics as the in-memory index
+		Pageable pageable = OffsetPageRequest.of(from, size);
+		int lowerBound = afterId != null ? afterId : 0;
+		Set<String> trigrams = Trigrams.of(ItemDocument.normalize(text));
+		if (trigrams.isEmpty() || itemSearchIndex.isEnabled()) {
+			return itemRepository.searchAvailable(text, lowerBound, pageable);
+		}
+		return itemRepository.searchAvailableByTrigrams(text, trigrams, trigrams.size(), lowerBound, pageable);
+	}
+
 	private Request getRequestFromItemDto(ItemRequestDto itemRequestDto) {
 		Request request = null;
 		Integer requestId = itemRequestDto.getRequestId();
@@ -14,12 +14,13 @@ import java.time.LocalDateTime;
 @Builder
 public class Request {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "requests_seq")
+	@SequenceGenerator(name = "requests_seq", sequenceName = "REQUESTS_SEQ", allocationSize = 50)
 	@Column(name = "REQUEST_ID")
 	@EqualsAndHashCode.Include
 	private int id;
 	private String description;
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "REQUESTER_ID", nullable = false)
 	private User requester;
 	private LocalDateTime created;
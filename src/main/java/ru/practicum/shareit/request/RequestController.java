@@ -1,8 +1,11 @@
 package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.dto.RequestPageDto;
 import ru.practicum.shareit.request.dto.RequestRequestDto;
 import ru.practicum.shareit.request.dto.RequestResponseDto;
 import ru.practicum.shareit.request.service.RequestService;
@@ -20,6 +23,7 @@ public class RequestController {
 
 	private final RequestService requestService;
 	private static final String USER_HEADER = "X-Sharer-User-Id";
+	private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
 	@PostMapping
 	@Validated
@@ -27,6 +31,14 @@ public class RequestController {
 		return requestService.addRequest(requestRequestDto, requesterId);
 	}
 
+	// Requests of other users that the user's available items may answer, newest first
+	@GetMapping("/matches")
+	public List<RequestMatchDto> getMatches(@RequestParam(required = false) @PositiveOrZero Integer from,
+	                                        @RequestParam(required = false) @Positive Integer size,
+	                                        @RequestHeader(USER_HEADER) Integer ownerId) {
+		return requestService.getMatches(ownerId, from, size);
+	}
+
 	@GetMapping("/{requestId}")
 	public RequestResponseDto getRequest(@PathVariable Integer requestId, @RequestHeader(USER_HEADER) Integer userId) {
 		return requestService.getRequestById(requestId, userId);
@@ -37,11 +49,21 @@ public class RequestController {
 		return requestService.getOwnRequests(requesterId);
 	}
 
+	// Without an offset the feed is paged by cursor (empty for the first page), the next cursor is sent in a header
 	@GetMapping("/all")
-	public List<RequestResponseDto> getOthersRequests(@RequestParam(required = false) @PositiveOrZero Integer from,
-	                                                  @RequestParam(required = false) @Positive Integer size,
-	                                                  @RequestHeader(USER_HEADER) Integer userId) {
-		return requestService.getOthersRequests(userId, from, size);
+	public ResponseEntity<List<RequestResponseDto>> getOthersRequests(@RequestParam(required = false) @PositiveOrZero Integer from,
+	                                                                  @RequestParam(required = false) @Positive Integer size,
+	                                                                  @RequestParam(required = false) String cursor,
+	                                                                  @RequestHeader(USER_HEADER) Integer userId) {
+		if (from == null) {
+			RequestPageDto page = requestService.getOthersRequestsPage(userId, cursor, size);
+			ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+			if (page.getNextCursor() != null) {
+				response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+			}
+			return response.body(page.getRequests());
+		}
+		return ResponseEntity.ok(requestService.getOthersRequests(userId, from, size));
 	}
 
 }
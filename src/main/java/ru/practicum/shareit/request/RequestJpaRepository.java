@@ -3,8 +3,12 @@ package ru.practicum.shareit.request;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,6 +18,55 @@ public interface RequestJpaRepository extends JpaRepository<Request, Integer> {
 
 	Page<Request> findAllByRequesterIdNot(Integer requesterId, Pageable page);
 
-	List<Request> findAllByRequesterIdNot(Integer requesterId);
+	// Keyset pages of other users' requests by (created, id), without the count query of a Page
+	@Query("SELECT r FROM Request r WHERE r.requester.id <> :requesterId ORDER BY r.created ASC, r.id ASC")
+	List<Request> findFirstByRequesterIdNot(Integer requesterId, Pageable page);
+
+	@Query("SELECT r FROM Request r WHERE r.requester.id <> :requesterId " +
+			"AND (r.created > :created OR (r.created = :created AND r.id > :id)) ORDER BY r.created ASC, r.id ASC")
+	List<Request> findFirstByRequesterIdNotAfter(Integer requesterId, LocalDateTime created, Integer id, Pageable page);
+
+	// Requests no item has answered yet
+	@Query("SELECT r FROM Request r WHERE NOT EXISTS (SELECT i.id FROM Item i WHERE i.request = r)")
+	List<Request> findAllOpen();
+
+	// Matches are inserted from the rows themselves, so rows deleted or changed since they were matched
+	// in memory are skipped, as are pairs already matched
+	String insertMatchesOfRequestQuery =
+			"INSERT INTO REQUEST_MATCHES (REQUEST_ID, ITEM_ID, OWNER_ID, CREATED) " +
+			"SELECT r.REQUEST_ID, i.ITEM_ID, i.OWNER_ID, :created FROM REQUESTS r " +
+			"JOIN ITEMS i ON i.ITEM_ID IN :itemIds AND i.AVAILABLE = TRUE AND i.OWNER_ID <> r.REQUESTER_ID " +
+			"WHERE r.REQUEST_ID = :requestId AND NOT EXISTS (SELECT 1 FROM REQUEST_MATCHES m " +
+					"WHERE m.REQUEST_ID = r.REQUEST_ID AND m.ITEM_ID = i.ITEM_ID)";
+
+	@Modifying(flushAutomatically = true)
+	@Query(nativeQuery = true, value = insertMatchesOfRequestQuery)
+	int insertMatchesOfRequest(Integer requestId, Collection<Integer> itemIds, LocalDateTime created);
+
+	String insertMatchesOfItemQuery =
+			"INSERT INTO REQUEST_MATCHES (REQUEST_ID, ITEM_ID, OWNER_ID, CREATED) " +
+			"SELECT r.REQUEST_ID, i.ITEM_ID, i.OWNER_ID, :created FROM ITEMS i " +
+			"JOIN REQUESTS r ON r.REQUEST_ID IN :requestIds AND r.REQUESTER_ID <> i.OWNER_ID " +
+			"WHERE i.ITEM_ID = :itemId AND i.AVAILABLE = TRUE AND NOT EXISTS (SELECT 1 FROM REQUEST_MATCHES m " +
+					"WHERE m.REQUEST_ID = r.REQUEST_ID AND m.ITEM_ID = i.ITEM_ID)";
+
+	@Modifying(flushAutomatically = true)
+	@Query(nativeQuery = true, value = insertMatchesOfItemQuery)
+	int insertMatchesOfItem(Integer itemId, Collection<Integer> requestIds, LocalDateTime created);
+
+	// Matches are kept as inserted, so items made unavailable and requests answered since are filtered out here
+	String findMatchesByOwnerIdQuery =
+			"SELECT m.REQUEST_ID AS requestId, r.DESCRIPTION AS description, m.ITEM_ID AS itemId, i.NAME AS itemName, " +
+					"m.CREATED AS created " +
+			"FROM REQUEST_MATCHES m " +
+			"JOIN REQUESTS r ON r.REQUEST_ID = m.REQUEST_ID " +
+			"JOIN ITEMS i ON i.ITEM_ID = m.ITEM_ID " +
+			"WHERE m.OWNER_ID = :ownerId AND i.AVAILABLE = TRUE " +
+					"AND NOT EXISTS (SELECT 1 FROM ITEMS a WHERE a.REQUEST_ID = m.REQUEST_ID) " +
+			"ORDER BY m.CREATED DESC, m.REQUEST_ID DESC, m.ITEM_ID DESC " +
+			"LIMIT :limit OFFSET :offset";
+
+	@Query(nativeQuery = true, value = findMatchesByOwnerIdQuery)
+	List<RequestMatchProjection> findMatchesByOwnerId(Integer ownerId, int offset, int limit);
 
 }
@@ -4,6 +4,7 @@ import org.modelmapper.ModelMapper;
 import ru.practicum.shareit.item.dto.item.ItemRequestDto;
 import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
 import ru.practicum.shareit.request.dto.RequestRequestDto;
 import ru.practicum.shareit.request.dto.RequestResponseDto;
 import ru.practicum.shareit.user.User;
@@ -31,9 +32,14 @@ public class RequestMapper {
 		return requestResponseDto;
 	}
 
-	public static List<RequestResponseDto> mapToRequestDtoList(List<Request> requestList, Map<Request, List<Item>> itemMap) {
+	public static RequestMatchDto mapToRequestMatchDto(RequestMatchProjection match) {
+		return new RequestMatchDto(match.getRequestId(), match.getDescription(), match.getItemId(), match.getItemName(),
+				match.getCreated());
+	}
+
+	public static List<RequestResponseDto> mapToRequestDtoList(List<Request> requestList, Map<Integer, List<Item>> itemMap) {
 		return requestList.stream().map(r -> {
-			List<ItemRequestDto> itemRequestDtoList = ItemMapper.mapToItemDtoList(itemMap.getOrDefault(r, Collections.EMPTY_LIST));
+			List<ItemRequestDto> itemRequestDtoList = ItemMapper.mapToItemDtoList(itemMap.getOrDefault(r.getId(), Collections.EMPTY_LIST));
 			RequestResponseDto requestResponseDto = RequestMapper.mapToRequestDto(r, itemRequestDtoList);
 			return requestResponseDto;
 		}).collect(Collectors.toList());
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request;
+
+import java.time.LocalDateTime;
+
+public interface RequestMatchProjection {
+
+	Integer getRequestId();
+
+	String getDescription();
+
+	Integer getItemId();
+
+	String getItemName();
+
+	LocalDateTime getCreated();
+
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A request of another user that one of the owner's items may answer
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestMatchDto {
+	private Integer requestId;
+	private String description;
+	private Integer itemId;
+	private String itemName;
+	private LocalDateTime created;
+}
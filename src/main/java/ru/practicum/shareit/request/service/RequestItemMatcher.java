@@ -0,0 +1,162 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.search.ItemDocument;
+import ru.practicum.shareit.request.Request;
+import ru.practicum.shareit.request.RequestJpaRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Stems of available item names and of open request descriptions. An item matches a request of another user
+// when every stem of its name occurs in the description, so a new request probes the postings of its own stems
+// and a new item probes the postings of its rarest stem
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RequestItemMatcher {
+
+	// Inflected forms share the first letters, "щётка" and "щёткой" both give "щетк"
+	static final int STEM_LENGTH = 4;
+
+	private final ItemJpaRepository itemRepository;
+	private final RequestJpaRepository requestJpaRepository;
+
+	private final Map<Integer, Entry> items = new ConcurrentHashMap<>();
+	private final Map<String, Set<Integer>> itemPostings = new ConcurrentHashMap<>();
+	private final Map<Integer, Entry> requests = new ConcurrentHashMap<>();
+	private final Map<String, Set<Integer>> requestPostings = new ConcurrentHashMap<>();
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void warmUp() {
+		List<Item> itemList = itemRepository.findAllByAvailableTrue();
+		itemList.forEach(item -> put(items, itemPostings, item.getId(), item.getOwner().getId(), item.getName()));
+		List<Request> requestList = requestJpaRepository.findAllOpen();
+		requestList.forEach(request -> put(requests, requestPostings, request.getId(), request.getRequester().getId(),
+				request.getDescription()));
+		log.info("Request matcher is warmed up with {} items and {} open requests", itemList.size(), requestList.size());
+	}
+
+	// Ids of available items of other users whose names are covered by the description
+	public Set<Integer> matchItems(Integer requesterId, String description) {
+		Set<String> stems = stems(description);
+		return stems.stream()
+				.flatMap(stem -> itemPostings.getOrDefault(stem, Collections.emptySet()).stream())
+				.distinct()
+				.filter(id -> {
+					Entry entry = items.get(id);
+					return entry != null && !entry.getUserId().equals(requesterId) && stems.containsAll(entry.getStems());
+				})
+				.collect(Collectors.toSet());
+	}
+
+	// Ids of open requests of other users whose descriptions cover the name
+	public Set<Integer> matchRequests(Integer ownerId, String name) {
+		Set<String> stems = stems(name);
+		Optional<Set<Integer>> rarest = stems.stream()
+				.map(stem -> requestPostings.getOrDefault(stem, Collections.emptySet()))
+				.min(Comparator.comparingInt(Set::size));
+		if (rarest.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return rarest.get().stream()
+				.filter(id -> {
+					Entry entry = requests.get(id);
+					return entry != null && !entry.getUserId().equals(ownerId) && entry.getStems().containsAll(stems);
+				})
+				.collect(Collectors.toSet());
+	}
+
+	// Changes become visible to the matcher only after the surrounding transaction commits
+	public void indexItem(Item item) {
+		Integer itemId = item.getId();
+		Integer ownerId = item.getOwner().getId();
+		String name = item.getName();
+		boolean available = Boolean.TRUE.equals(item.getAvailable());
+		afterCommit(() -> {
+			if (available) {
+				put(items, itemPostings, itemId, ownerId, name);
+			} else {
+				remove(items, itemPostings, itemId);
+			}
+		});
+	}
+
+	public void indexRequest(Request request) {
+		Integer requestId = request.getId();
+		Integer requesterId = request.getRequester().getId();
+		String description = request.getDescription();
+		afterCommit(() -> put(requests, requestPostings, requestId, requesterId, description));
+	}
+
+	// A request answered by an item is not offered to other owners any more
+	public void closeRequest(Integer requestId) {
+		afterCommit(() -> remove(requests, requestPostings, requestId));
+	}
+
+	static Set<String> stems(String text) {
+		return ItemDocument.tokenize(ItemDocument.normalize(text).replace('ё', 'е'))
+				.stream()
+				.filter(token -> token.length() >= STEM_LENGTH)
+				.map(token -> token.substring(0, STEM_LENGTH))
+				.collect(Collectors.toSet());
+	}
+
+	// PRIVATE
+	private static void afterCommit(Runnable change) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					change.run();
+				}
+			});
+		} else {
+			change.run();
+		}
+	}
+
+	// Texts without stems can't match anything and are left out
+	private synchronized void put(Map<Integer, Entry> entries, Map<String, Set<Integer>> postings, Integer id,
+	                              Integer userId, String text) {
+		remove(entries, postings, id);
+		Set<String> stems = stems(text);
+		if (stems.isEmpty()) {
+			return;
+		}
+		entries.put(id, new Entry(userId, stems));
+		stems.forEach(stem -> postings.computeIfAbsent(stem, s -> ConcurrentHashMap.newKeySet()).add(id));
+	}
+
+	private synchronized void remove(Map<Integer, Entry> entries, Map<String, Set<Integer>> postings, Integer id) {
+		Entry previous = entries.remove(id);
+		if (previous == null) {
+			return;
+		}
+		previous.getStems().forEach(stem -> postings.computeIfPresent(stem, (s, ids) -> {
+			ids.remove(id);
+			return ids.isEmpty() ? null : ids;
+		}));
+	}
+
+	@Getter
+	@AllArgsConstructor
+	private static class Entry {
+		private final Integer userId;
+		private final Set<String> stems;
+	}
+
+}
@@ -1,6 +1,9 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.request.Request;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.dto.RequestPageDto;
 import ru.practicum.shareit.request.dto.RequestRequestDto;
 import ru.practicum.shareit.request.dto.RequestResponseDto;
 
@@ -18,4 +21,10 @@ public interface RequestService {
 
 	List<RequestResponseDto> getOthersRequests(Integer userId, Integer from, Integer size);
 
+	RequestPageDto getOthersRequestsPage(Integer userId, String cursor, Integer size);
+
+	List<RequestMatchDto> getMatches(Integer ownerId, Integer from, Integer size);
+
+	void matchItem(Item item);
+
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
 import ru.practicum.shareit.item.dto.item.ItemRequestDto;
 import ru.practicum.shareit.item.entity.Item;
@@ -13,14 +14,21 @@ import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.Request;
 import ru.practicum.shareit.request.RequestJpaRepository;
 import ru.practicum.shareit.request.RequestMapper;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.dto.RequestPageDto;
 import ru.practicum.shareit.request.dto.RequestRequestDto;
 import ru.practicum.shareit.request.dto.RequestResponseDto;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.PageCursor;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,7 +36,10 @@ import java.util.stream.Collectors;
 @Slf4j
 public class RequestServiceImpl implements RequestService {
 
+	private static final int DEFAULT_PAGE_SIZE = 20;
+
 	private final RequestJpaRepository requestJpaRepository;
+	private final RequestItemMatcher requestItemMatcher;
 
 	private UserService userService;
 	private ItemService itemService;
@@ -43,15 +54,22 @@ public class RequestServiceImpl implements RequestService {
 		this.itemService = itemService;
 	}
 
+	@Transactional
 	@Override
 	public RequestResponseDto addRequest(RequestRequestDto requestRequestDto, Integer requesterId) {
 		User requester = userService.getUserEntityById(requesterId);
 		Request newRequest = RequestMapper.mapToNewRequest(requestRequestDto, requester);
 		Request savedRequest = requestJpaRepository.save(newRequest);
-		log.info("Create item request with id {}", savedRequest.getId());
+		Set<Integer> itemIds = requestItemMatcher.matchItems(requesterId, savedRequest.getDescription());
+		if (!itemIds.isEmpty()) {
+			requestJpaRepository.insertMatchesOfRequest(savedRequest.getId(), itemIds, savedRequest.getCreated());
+		}
+		requestItemMatcher.indexRequest(savedRequest);
+		log.info("Create item request with id {} matching {} items", savedRequest.getId(), itemIds.size());
 		return RequestMapper.mapToRequestDto(savedRequest, Collections.EMPTY_LIST);
 	}
 
+	@Transactional(readOnly = true)
 	@Override
 	public RequestResponseDto getRequestById(Integer requestId, Integer userId) {
 		Request request = getRequestEntityById(requestId);
@@ -67,29 +85,90 @@ public class RequestServiceImpl implements RequestService {
 				requestId));
 	}
 
+	@Transactional(readOnly = true)
 	@Override
 	public List<RequestResponseDto> getOwnRequests(Integer requesterId) {
 		User requester = userService.getUserEntityById(requesterId);
 		List<Request> requestList = requestJpaRepository.findAllByRequesterIdOrderByCreatedAsc(requesterId);
 		List<Item> itemList = itemService.getOwnRequestsItems(requesterId);
-		Map<Request, List<Item>> requestItemsMap = itemList.stream().collect(Collectors.groupingBy(Item::getRequest));
+		Map<Integer, List<Item>> requestItemsMap = itemList.stream()
+				.collect(Collectors.groupingBy(item -> item.getRequest().getId()));
 		return RequestMapper.mapToRequestDtoList(requestList, requestItemsMap);
 	}
 
+	// Without an offset the first page of the feed is returned, so the answer is never unbounded
+	@Transactional(readOnly = true)
 	@Override
 	public List<RequestResponseDto> getOthersRequests(Integer userId, Integer from, Integer size) {
-		User user = userService.getUserEntityById(userId);
-		List<Item> itemList;
-		List<Request> requestList;
 		if (from == null) {
-			requestList = requestJpaRepository.findAllByRequesterIdNot(userId);
-			itemList = itemService.getOtherRequestsItems(userId);
-		} else {
-			PageRequest pageRequest = PageRequest.of(from / size, size, Sort.by("Created").ascending());
-			requestList = requestJpaRepository.findAllByRequesterIdNot(userId, pageRequest).getContent();
-			itemList = itemService.getItemsByRequestList(requestList);
+			return getOthersRequestsPage(userId, "", size).getRequests();
+		}
+		userService.getUserEntityById(userId);
+		int limit = size != null ? size : DEFAULT_PAGE_SIZE;
+		PageRequest pageRequest = PageRequest.of(from / limit, limit, Sort.by("Created").ascending());
+		List<Request> requestList = requestJpaRepository.findAllByRequesterIdNot(userId, pageRequest).getContent();
+		return mapWithItems(requestList);
+	}
+
+	// Requests are sought by keyset after the cursor, items are read for the requests of the page only
+	@Transactional(readOnly = true)
+	@Override
+	public RequestPageDto getOthersRequestsPage(Integer userId, String cursor, Integer size) {
+		userService.getUserEntityById(userId);
+		int limit = size != null ? size : DEFAULT_PAGE_SIZE;
+		PageCursor position = PageCursor.decode(cursor);
+		PageRequest pageRequest = PageRequest.of(0, limit + 1);
+		List<Request> requestList = position == null ?
+				requestJpaRepository.findFirstByRequesterIdNot(userId, pageRequest) :
+				requestJpaRepository.findFirstByRequesterIdNotAfter(userId, position.getTimestamp(), position.getId(),
+						pageRequest);
+		String nextCursor = null;
+		if (requestList.size() > limit) {
+			requestList = requestList.subList(0, limit);
+			Request last = requestList.get(limit - 1);
+			nextCursor = new PageCursor(last.getCreated(), last.getId()).encode();
+		}
+		return new RequestPageDto(mapWithItems(requestList), nextCursor);
+	}
+
+	@Transactional(readOnly = true)
+	@Override
+	public List<RequestMatchDto> getMatches(Integer ownerId, Integer from, Integer size) {
+		userService.getUserEntityById(ownerId);
+		int limit = size != null ? size : DEFAULT_PAGE_SIZE;
+		return requestJpaRepository.findMatchesByOwnerId(ownerId, from != null ? from : 0, limit).stream()
+				.map(RequestMapper::mapToRequestMatchDto)
+				.collect(Collectors.toList());
+	}
+
+	// An available item is matched against the open requests of other users, the request it answers is closed
+	@Transactional
+	@Override
+	public void matchItem(Item item) {
+		Integer answeredRequestId = item.getRequest() != null ? item.getRequest().getId() : null;
+		if (answeredRequestId != null) {
+			requestItemMatcher.closeRequest(answeredRequestId);
+		}
+		requestItemMatcher.indexItem(item);
+		if (!Boolean.TRUE.equals(item.getAvailable())) {
+			return;
+		}
+		Set<Integer> requestIds = new HashSet<>(requestItemMatcher.matchRequests(item.getOwner().getId(),
+				item.getName()));
+		requestIds.remove(answeredRequestId);
+		if (!requestIds.isEmpty()) {
+			int matched = requestJpaRepository.insertMatchesOfItem(item.getId(), requestIds, LocalDateTime.now());
+			log.info("Item with id {} matches {} requests", item.getId(), matched);
+		}
+	}
+
+	// PRIVATE
+	private List<RequestResponseDto> mapWithItems(List<Request> requestList) {
+		if (requestList.isEmpty()) {
+			return new ArrayList<>();
 		}
-		Map<Request, List<Item>> requestItemsMap = itemList.stream().collect(Collectors.groupingBy(Item::getRequest));
+		Map<Integer, List<Item>> requestItemsMap = itemService.getItemsByRequestList(requestList).stream()
+				.collect(Collectors.groupingBy(item -> item.getRequest().getId()));
 		return RequestMapper.mapToRequestDtoList(requestList, requestItemsMap);
 	}
 
@@ -13,7 +13,8 @@ import javax.validation.constraints.Email;
 @Builder
 public class User {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+	@SequenceGenerator(name = "users_seq", sequenceName = "USERS_SEQ", allocationSize = 50)
 	@Column(name = "USER_ID")
 	@EqualsAndHashCode.Include
 	private Integer id;
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.utils;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+// Page addressed by a row offset, "from" doesn't have to be a multiple of "size"
+@Getter
+@EqualsAndHashCode
+public class OffsetPageRequest implements Pageable {
+
+	private final long offset;
+	private final int pageSize;
+	private final Sort sort;
+
+	private OffsetPageRequest(long offset, int pageSize, Sort sort) {
+		this.offset = offset;
+		this.pageSize = pageSize;
+		this.sort = sort;
+	}
+
+	// Without a size every row from the offset on is read
+	public static Pageable of(Integer from, Integer size) {
+		if (from == null && size == null) {
+			return Pageable.unpaged();
+		}
+		return new OffsetPageRequest(from != null ? from : 0, size != null ? size : Integer.MAX_VALUE, Sort.unsorted());
+	}
+
+	@Override
+	public int getPageNumber() {
+		return (int) (offset / pageSize);
+	}
+
+	@Override
+	public Pageable next() {
+		return new OffsetPageRequest(offset + pageSize, pageSize, sort);
+	}
+
+	@Override
+	public Pageable previousOrFirst() {
+		return hasPrevious() ? new OffsetPageRequest(Math.max(offset - pageSize, 0), pageSize, sort) : first();
+	}
+
+	@Override
+	public Pageable first() {
+		return new OffsetPageRequest(0, pageSize, sort);
+	}
+
+	@Override
+	public Pageable withPage(int pageNumber) {
+		return new OffsetPageRequest((long) pageNumber * pageSize, pageSize, sort);
+	}
+
+	@Override
+	public boolean hasPrevious() {
+		return offset > 0;
+	}
+
+}
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.exception.IncorrectCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Position of the last row of a page ordered by (timestamp, id), clients get it as an opaque token
+@Getter
+@AllArgsConstructor
+public class PageCursor {
+
+	private static final String SEPARATOR = "|";
+
+	private final LocalDateTime timestamp;
+	private final Integer id;
+
+	public String encode() {
+		String position = timestamp + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// An empty token stands for the first page
+	public static PageCursor decode(String token) {
+		if (token == null || token.isEmpty()) {
+			return null;
+		}
+		try {
+			String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = position.indexOf(SEPARATOR);
+			if (separator < 0) {
+				throw new IncorrectCursorException(token);
+			}
+			return new PageCursor(LocalDateTime.parse(position.substring(0, separator)),
+					Integer.valueOf(position.substring(separator + 1)));
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new IncorrectCursorException(token);
+		}
+	}
+
+}
@@ -1,56 +1,133 @@
 -- DROP TABLES
 
+ALTER TABLE IF EXISTS ITEMS DROP CONSTRAINT IF EXISTS ITEMS_LAST_BOOKING_ID_FK;
+ALTER TABLE IF EXISTS ITEMS DROP CONSTRAINT IF EXISTS ITEMS_NEXT_BOOKING_ID_FK;
+DROP TABLE IF EXISTS BOOKING_EVENTS;
 DROP TABLE IF EXISTS СOMMENTS;
+DROP TABLE IF EXISTS BOOKINGS_HISTORY;
 DROP TABLE IF EXISTS BOOKINGS;
+DROP TABLE IF EXISTS ITEM_TRIGRAMS;
+DROP TABLE IF EXISTS REQUEST_MATCHES;
 DROP TABLE IF EXISTS ITEMS;
 DROP TABLE IF EXISTS REQUESTS;
 DROP TABLE IF EXISTS USERS;
+DROP SEQUENCE IF EXISTS BOOKING_EVENTS_SEQ;
+DROP SEQUENCE IF EXISTS COMMENTS_SEQ;
+DROP SEQUENCE IF EXISTS BOOKINGS_SEQ;
+DROP SEQUENCE IF EXISTS ITEMS_SEQ;
+DROP SEQUENCE IF EXISTS REQUESTS_SEQ;
+DROP SEQUENCE IF EXISTS USERS_SEQ;
+
+--CREATE SEQUENCES
+-- Ids are handed out by Hibernate in blocks of 50 (pooled optimizer), so inserts can be batched
+CREATE SEQUENCE IF NOT EXISTS USERS_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS REQUESTS_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS ITEMS_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS BOOKINGS_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS COMMENTS_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS BOOKING_EVENTS_SEQ START WITH 1 INCREMENT BY 50;
 
 --CREATE TABLES
 CREATE TABLE IF NOT EXISTS USERS
 (
-    USER_ID  INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    USER_ID  INTEGER PRIMARY KEY,
     NAME     VARCHAR(128) NOT NULL UNIQUE,
     EMAIL    VARCHAR(128) NOT NULL UNIQUE
 );
 
 CREATE TABLE IF NOT EXISTS REQUESTS
 (
-    REQUEST_ID   INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    REQUEST_ID   INTEGER PRIMARY KEY,
     DESCRIPTION  VARCHAR(512) NOT NULL,
     REQUESTER_ID INTEGER NOT NULL,
     CREATED      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     CONSTRAINT REQUESTS_REQUESTER_ID_FK FOREIGN KEY (REQUESTER_ID) REFERENCES USERS(USER_ID) ON DELETE CASCADE
 );
 
+-- The feed of other users' requests is read in (CREATED, REQUEST_ID) order
+CREATE INDEX IF NOT EXISTS REQUESTS_CREATED_REQUEST_ID_IDX ON REQUESTS (CREATED, REQUEST_ID);
+
 CREATE TABLE IF NOT EXISTS ITEMS
 (
-    ITEM_ID     INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    ITEM_ID     INTEGER PRIMARY KEY,
     NAME        VARCHAR(128) NOT NULL,
     DESCRIPTION VARCHAR(258) NOT NULL,
     AVAILABLE   BOOLEAN,
     OWNER_ID    INTEGER NOT NULL,
     REQUEST_ID  INTEGER,
+    LAST_BOOKING_ID INTEGER,
+    NEXT_BOOKING_ID INTEGER,
+    VERSION     INTEGER DEFAULT 0 NOT NULL,
     CONSTRAINT ITEMS_OWNER_ID_FK FOREIGN KEY (OWNER_ID) REFERENCES USERS(USER_ID) ON DELETE CASCADE,
     CONSTRAINT ITEMS_REQUEST_ID_KR FOREIGN KEY (REQUEST_ID) REFERENCES REQUESTS(REQUEST_ID) ON DELETE CASCADE
 );
 
+CREATE TABLE IF NOT EXISTS ITEM_TRIGRAMS
+(
+    ITEM_ID INTEGER NOT NULL,
+    TRIGRAM VARCHAR(3) NOT NULL,
+    CONSTRAINT ITEM_TRIGRAMS_PK PRIMARY KEY (TRIGRAM, ITEM_ID),
+    CONSTRAINT ITEM_TRIGRAMS_ITEM_ID_FK FOREIGN KEY (ITEM_ID) REFERENCES ITEMS(ITEM_ID) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS ITEM_TRIGRAMS_ITEM_ID_IDX ON ITEM_TRIGRAMS (ITEM_ID);
 
 CREATE TABLE IF NOT EXISTS BOOKINGS
 (
-    BOOKING_ID  INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    BOOKING_ID  INTEGER PRIMARY KEY,
     START_DATE  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     END_DATE    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     ITEM_ID     INTEGER NOT NULL,
     BOOKER_ID   INTEGER NOT NULL,
+    OWNER_ID    INTEGER NOT NULL,
     STATUS      VARCHAR(20) NOT NULL,
+    VERSION     INTEGER DEFAULT 0 NOT NULL,
     CONSTRAINT BOOKINGS_ITEM_ID_FK FOREIGN KEY (ITEM_ID) REFERENCES ITEMS(ITEM_ID) ON DELETE CASCADE,
-    CONSTRAINT BOOKINGS_BOOKER_ID_FK FOREIGN KEY (BOOKER_ID) REFERENCES USERS(USER_ID) ON DELETE CASCADE
+    CONSTRAINT BOOKINGS_BOOKER_ID_FK FOREIGN KEY (BOOKER_ID) REFERENCES USERS(USER_ID) ON DELETE CASCADE,
+    CONSTRAINT BOOKINGS_OWNER_ID_FK FOREIGN KEY (OWNER_ID) REFERENCES USERS(USER_ID) ON DELETE CASCADE
+);
+
+-- Booking lists filter by booker or owner and sort by start, status filters get their own prefix.
+-- END_DATE serves the interval index warm-up and the archiver
+CREATE INDEX IF NOT EXISTS BOOKINGS_BOOKER_ID_START_DATE_IDX ON BOOKINGS (BOOKER_ID, START_DATE);
+CREATE INDEX IF NOT EXISTS BOOKINGS_BOOKER_ID_STATUS_START_DATE_IDX ON BOOKINGS (BOOKER_ID, STATUS, START_DATE);
+CREATE INDEX IF NOT EXISTS BOOKINGS_OWNER_ID_START_DATE_IDX ON BOOKINGS (OWNER_ID, START_DATE);
+CREATE INDEX IF NOT EXISTS BOOKINGS_OWNER_ID_STATUS_START_DATE_IDX ON BOOKINGS (OWNER_ID, STATUS, START_DATE);
+CREATE INDEX IF NOT EXISTS BOOKINGS_ITEM_ID_START_DATE_IDX ON BOOKINGS (ITEM_ID, START_DATE);
+CREATE INDEX IF NOT EXISTS BOOKINGS_ITEM_ID_BOOKER_ID_STATUS_END_DATE_IDX ON BOOKINGS (ITEM_ID, BOOKER_ID, STATUS, END_DATE);
+CREATE INDEX IF NOT EXISTS BOOKINGS_END_DATE_IDX ON BOOKINGS (END_DATE);
+
+-- Bookings finished long ago are moved here by the archiver, ids are kept
+CREATE TABLE IF NOT EXISTS BOOKINGS_HISTORY
+(
+    BOOKING_ID  INTEGER PRIMARY KEY,
+    START_DATE  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    END_DATE    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    ITEM_ID     INTEGER NOT NULL,
+    BOOKER_ID   INTEGER NOT NULL,
+    OWNER_ID    INTEGER NOT NULL,
+    STATUS      VARCHAR(20) NOT NULL,
+    VERSION     INTEGER DEFAULT 0 NOT NULL,
+    CONSTRAINT BOOKINGS_HISTORY_ITEM_ID_FK FOREIGN KEY (ITEM_ID) REFERENCES ITEMS(ITEM_ID) ON DELETE CASCADE,
+    CONSTRAINT BOOKINGS_HISTORY_BOOKER_ID_FK FOREIGN KEY (BOOKER_ID) REFERENCES USERS(USER_ID) ON DELETE CASCADE,
+    CONSTRAINT BOOKINGS_HISTORY_OWNER_ID_FK FOREIGN KEY (OWNER_ID) REFERENCES USERS(USER_ID) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS BOOKINGS_HISTORY_BOOKER_ID_START_DATE_IDX ON BOOKINGS_HISTORY (BOOKER_ID, START_DATE);
+CREATE INDEX IF NOT EXISTS BOOKINGS_HISTORY_OWNER_ID_START_DATE_IDX ON BOOKINGS_HISTORY (OWNER_ID, START_DATE);
+CREATE INDEX IF NOT EXISTS BOOKINGS_HISTORY_ITEM_ID_BOOKER_ID_STATUS_END_DATE_IDX
+    ON BOOKINGS_HISTORY (ITEM_ID, BOOKER_ID, STATUS, END_DATE);
+
+-- ITEMS and BOOKINGS reference each other, so the pointer keys are added once both exist.
+-- They are dropped at the top of the script, which keeps it rerunnable
+ALTER TABLE ITEMS ADD CONSTRAINT ITEMS_LAST_BOOKING_ID_FK
+    FOREIGN KEY (LAST_BOOKING_ID) REFERENCES BOOKINGS(BOOKING_ID) ON DELETE SET NULL;
+ALTER TABLE ITEMS ADD CONSTRAINT ITEMS_NEXT_BOOKING_ID_FK
+    FOREIGN KEY (NEXT_BOOKING_ID) REFERENCES BOOKINGS(BOOKING_ID) ON DELETE SET NULL;
+
 CREATE TABLE IF NOT EXISTS СOMMENTS
 (
-    СOMMENT_ID INTEGER GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    СOMMENT_ID INTEGER PRIMARY KEY,
     TEXT       VARCHAR(512) NOT NULL,
     ITEM_ID    INTEGER NOT NULL,
     AUTHOR_ID  INTEGER NOT NULL,
@@ -59,5 +136,33 @@ CREATE TABLE IF NOT EXISTS СOMMENTS
     CONSTRAINT СOMMENTS_AUTHOR_ID_FK FOREIGN KEY (AUTHOR_ID) REFERENCES USERS(USER_ID) ON DELETE CASCADE
 );
 
+-- Outbox of booking changes, read by the relay of every instance and purged after the retention period.
+-- No foreign keys, as the booking may be archived before its event is purged
+CREATE TABLE IF NOT EXISTS BOOKING_EVENTS
+(
+    EVENT_ID   BIGINT PRIMARY KEY,
+    BOOKING_ID INTEGER NOT NULL,
+    ITEM_ID    INTEGER NOT NULL,
+    BOOKER_ID  INTEGER NOT NULL,
+    OWNER_ID   INTEGER NOT NULL,
+    STATUS     VARCHAR(20) NOT NULL,
+    CREATED    TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS BOOKING_EVENTS_CREATED_IDX ON BOOKING_EVENTS (CREATED);
 
+-- Requests matched to available items of other users, read by the item owner newest first
+CREATE TABLE IF NOT EXISTS REQUEST_MATCHES
+(
+    REQUEST_ID INTEGER NOT NULL,
+    ITEM_ID    INTEGER NOT NULL,
+    OWNER_ID   INTEGER NOT NULL,
+    CREATED    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT REQUEST_MATCHES_PK PRIMARY KEY (REQUEST_ID, ITEM_ID),
+    CONSTRAINT REQUEST_MATCHES_REQUEST_ID_FK FOREIGN KEY (REQUEST_ID) REFERENCES REQUESTS(REQUEST_ID) ON DELETE CASCADE,
+    CONSTRAINT REQUEST_MATCHES_ITEM_ID_FK FOREIGN KEY (ITEM_ID) REFERENCES ITEMS(ITEM_ID) ON DELETE CASCADE,
+    CONSTRAINT REQUEST_MATCHES_OWNER_ID_FK FOREIGN KEY (OWNER_ID) REFERENCES USERS(USER_ID) ON DELETE CASCADE
+);
 
+CREATE INDEX IF NOT EXISTS REQUEST_MATCHES_OWNER_ID_CREATED_IDX ON REQUEST_MATCHES (OWNER_ID, CREATED);
+CREATE INDEX IF NOT EXISTS REQUEST_MATCHES_ITEM_ID_IDX ON REQUEST_MATCHES (ITEM_ID);
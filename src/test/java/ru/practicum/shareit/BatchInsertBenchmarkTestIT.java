@@ -0,0 +1,79 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+// Compares inserts with the configured JDBC batch size to one statement per insert on H2,
+// throughput is only logged as it depends on the machine
+@SpringBootTest(properties = {
+		"db.name=test",
+		"shareit.booking.event-relay-enabled=false",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+}, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Slf4j
+public class BatchInsertBenchmarkTestIT {
+
+	private static final int WARM_UP_COUNT = 1000;
+	private static final int USER_COUNT = 5000;
+	private static final int BATCH_SIZE = 50;
+
+	private final EntityManager entityManager;
+	private final EntityManagerFactory entityManagerFactory;
+	private final PlatformTransactionManager transactionManager;
+
+	@Test
+	void persist_whenJdbcBatchingEnabled_thenFewerStatementsPrepared() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		insertUsers("warm-up-batched", WARM_UP_COUNT, BATCH_SIZE);
+		insertUsers("warm-up-single", WARM_UP_COUNT, 1);
+
+		statistics.clear();
+		long batchedNanos = insertUsers("batched", USER_COUNT, BATCH_SIZE);
+		long batchedStatements = statistics.getPrepareStatementCount();
+		statistics.clear();
+		long singleNanos = insertUsers("single", USER_COUNT, 1);
+		long singleStatements = statistics.getPrepareStatementCount();
+
+		log.info("Batched inserts: {} statements, {} users/s", batchedStatements, throughput(batchedNanos));
+		log.info("Single inserts: {} statements, {} users/s", singleStatements, throughput(singleNanos));
+		assertThat(batchedStatements, lessThan(singleStatements / 10));
+	}
+
+	// Users are rolled back, so the benchmark leaves no rows behind
+	private long insertUsers(String prefix, int count, int batchSize) {
+		Long elapsed = new TransactionTemplate(transactionManager).execute(status -> {
+			entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+			long start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				entityManager.persist(User.builder().name(prefix + i).email(prefix + i + "@mail.org").build());
+			}
+			entityManager.flush();
+			long nanos = System.nanoTime() - start;
+			status.setRollbackOnly();
+			return nanos;
+		});
+		return elapsed != null ? elapsed : 0;
+	}
+
+	private static long throughput(long nanos) {
+		return USER_COUNT * TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1);
+	}
+
+}
@@ -3,7 +3,7 @@ package ru.practicum.shareit;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "shareit.booking.event-relay-enabled=false")
 class ShareItTests {
 
 	@Test
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.aop;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RetryOnConflictAspectTest {
+
+	@Test
+	void retry_whenConflictsLessThanAttempts_thenResultReturned() {
+		// given
+		ConflictingService service = proxy(new ConflictingService(2));
+		// when
+		String result = service.update();
+		// then
+		assertThat(result, equalTo("updated"));
+		assertThat(service.getCalls(), equalTo(3));
+	}
+
+	@Test
+	void retry_whenConflictsExceedAttempts_thenConflictRethrown() {
+		// given
+		ConflictingService service = proxy(new ConflictingService(3));
+		// then
+		assertThrows(OptimisticLockingFailureException.class, service::update);
+		assertThat(service.getCalls(), equalTo(3));
+	}
+
+	@Test
+	void retry_whenOtherException_thenNotRetried() {
+		// given
+		ConflictingService service = proxy(new ConflictingService(0));
+		// then
+		assertThrows(IllegalStateException.class, service::fail);
+		assertThat(service.getCalls(), equalTo(1));
+	}
+
+	private static ConflictingService proxy(ConflictingService target) {
+		AspectJProxyFactory factory = new AspectJProxyFactory(target);
+		factory.setProxyTargetClass(true);
+		factory.addAspect(new RetryOnConflictAspect());
+		return factory.getProxy();
+	}
+
+	static class ConflictingService {
+
+		private final int conflicts;
+		private int calls;
+
+		ConflictingService(int conflicts) {
+			this.conflicts = conflicts;
+		}
+
+		@RetryOnConflict
+		public String update() {
+			if (++calls <= conflicts) {
+				throw new OptimisticLockingFailureException("Row was updated by another transaction");
+			}
+			return "updated";
+		}
+
+		@RetryOnConflict
+		public String fail() {
+			calls++;
+			throw new IllegalStateException();
+		}
+
+		public int getCalls() {
+			return calls;
+		}
+
+	}
+
+}
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.aop;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingJpaRepository;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.ItemAvailabilityCache;
+import ru.practicum.shareit.item.dto.item.ItemRequestDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.UserJpaRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.doAnswer;
+
+// Not transactional, as each attempt of the service call has to commit or roll back on its own
+@SpringBootTest(properties = {"db.name=test", "shareit.booking.event-relay-enabled=false"},
+		webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class RetryOnConflictTestIT {
+
+	private final BookingService bookingService;
+	private final UserService userService;
+	private final ItemService itemService;
+	private final BookingJpaRepository bookingJpaRepository;
+	private final UserJpaRepository userJpaRepository;
+	private final EntityManagerFactory entityManagerFactory;
+
+	@SpyBean
+	private ItemAvailabilityCache itemAvailabilityCache;
+
+	private final List<Integer> userIds = new ArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		userJpaRepository.deleteAllByIdInBatch(userIds);
+	}
+
+	@Test
+	void approveBooking_whenFirstAttemptConflicts_thenRetriedInNewTransaction() {
+		// given
+		int ownerId = addUser("Retry owner", "retry-owner@mail.org");
+		int bookerId = addUser("Retry booker", "retry-booker@mail.org");
+		int itemId = itemService.addItem(ItemRequestDto.builder().name("Item A").description("Item A").available(true)
+				.build(), ownerId).getId();
+		LocalDateTime start = LocalDateTime.now().plusDays(1);
+		int bookingId = bookingService.addBooking(BookingRequestDto.builder().itemId(itemId).start(start)
+				.end(start.plusDays(1)).build(), bookerId).getId();
+		// The conflict is raised after the first attempt has already changed the booking
+		List<Object> transactions = new ArrayList<>();
+		doAnswer(invocation -> {
+			transactions.add(TransactionSynchronizationManager.getResource(entityManagerFactory));
+			if (transactions.size() == 1) {
+				throw new ObjectOptimisticLockingFailureException(Booking.class, bookingId);
+			}
+			return invocation.callRealMethod();
+		}).when(itemAvailabilityCache).invalidate(itemId);
+		// when
+		BookingResponseDto approved = bookingService.approveBooking(bookingId, ownerId, true);
+		// then
+		assertThat(approved.getStatus(), equalTo(BookingStatus.APPROVED));
+		assertThat(transactions, hasSize(2));
+		assertThat(transactions.get(0), notNullValue());
+		assertThat(transactions.get(1), notNullValue());
+		assertThat(transactions.get(1), not(sameInstance(transactions.get(0))));
+		// The first attempt was rolled back, so the booking was updated once
+		assertThat(bookingJpaRepository.findById(bookingId).orElseThrow().getVersion(), equalTo(1));
+	}
+
+	private int addUser(String name, String email) {
+		int userId = userService.addUser(UserDto.builder().name(name).email(email).build()).getId();
+		userIds.add(userId);
+		return userId;
+	}
+
+}
@@ -9,9 +9,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.exception.ItemBusyException;
 import ru.practicum.shareit.booking.exception.IncorrectStatusChangeException;
 import ru.practicum.shareit.booking.exception.ResourceNotAvailableException;
 import ru.practicum.shareit.booking.exception.SelfBookingException;
@@ -19,12 +25,16 @@ import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.item.dto.item.ItemShortResponseDto;
 import ru.practicum.shareit.user.dto.UserShortResponseDto;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -167,6 +177,64 @@ class BookingControllerTest {
 
 	}
 
+	@Test
+	@SneakyThrows
+	void approveBooking_whenItemBusy_thenStatusIsConflict() {
+		// when
+		when(bookingService.approveBooking(1, 1, true)).thenThrow(new ItemBusyException(1));
+
+		mvc.perform(patch("/bookings/1")
+						.accept(MediaType.APPLICATION_JSON)
+						.header("X-Sharer-User-Id", "1")
+						.param("approved", "true"))
+
+				// then
+				.andExpectAll(
+						status().isConflict()
+				);
+	}
+
+	@Test
+	@SneakyThrows
+	void approveBookings_whenDecisionsGiven_thenResultPerBookingReturned() {
+		// given
+		List<BookingDecisionDto> decisions = List.of(new BookingDecisionDto(1, true), new BookingDecisionDto(2, true));
+		// when
+		when(bookingService.approveBookings(1, decisions)).thenReturn(List.of(
+				new BookingDecisionResultDto(1, BookingStatus.APPROVED, null),
+				new BookingDecisionResultDto(2, BookingStatus.WAITING, "Item not available")));
+
+		mvc.perform(patch("/bookings/bulk")
+						.contentType(MediaType.APPLICATION_JSON)
+						.accept(MediaType.APPLICATION_JSON)
+						.header("X-Sharer-User-Id", "1")
+						.content(mapper.writeValueAsString(decisions)))
+
+				// then
+				.andExpectAll(
+						status().isOk(),
+						jsonPath("$[0].status", equalTo("APPROVED")),
+						jsonPath("$[1].error", equalTo("Item not available"))
+				);
+	}
+
+	@Test
+	@SneakyThrows
+	void approveBookings_whenDecisionHasNoBookingId_thenStatusIsBadRequest() {
+		// when
+		mvc.perform(patch("/bookings/bulk")
+						.contentType(MediaType.APPLICATION_JSON)
+						.accept(MediaType.APPLICATION_JSON)
+						.header("X-Sharer-User-Id", "1")
+						.content("[{\"approved\": true}]"))
+
+				// then
+				.andExpectAll(
+						status().isBadRequest()
+				);
+		verifyNoInteractions(bookingService);
+	}
+
 	@Test
 	@SneakyThrows
 	void approveBooking_whenStatusIsNotWaiting_thenIncorrectStatusChangeExceptionThrown() {
@@ -186,6 +254,23 @@ class BookingControllerTest {
 
 	}
 
+	@Test
+	@SneakyThrows
+	void streamBookingEvents_whenUserGiven_thenAsyncStreamStarted() {
+		// when
+		when(bookingService.subscribeToEvents(1)).thenReturn(new SseEmitter());
+
+		mvc.perform(get("/bookings/stream")
+						.accept(MediaType.TEXT_EVENT_STREAM)
+						.header("X-Sharer-User-Id", "1"))
+
+				// then
+				.andExpectAll(
+						status().isOk(),
+						request().asyncStarted()
+				);
+	}
+
 	@Test
 	@SneakyThrows
 	void getBooking_whenBookingFound_thenBookingReturned() {
@@ -253,4 +338,42 @@ class BookingControllerTest {
 				);
 	}
 
-}
\ No newline at end of file
+	@Test
+	@SneakyThrows
+	void getOwnersBookings_whenCursorGiven_thenPageAndNextCursorReturned() {
+		// when
+		when(bookingService.getOwnersBookingsPage(1, BookingState.ALL, "", 1))
+				.thenReturn(new BookingPageDto(List.of(bookingResponseDto), "next"));
+		mvc.perform(get("/bookings/owner")
+						.accept(MediaType.APPLICATION_JSON)
+						.param("cursor", "")
+						.param("size", "1")
+						.header("X-Sharer-User-Id", "1"))
+
+				// then
+				.andExpectAll(
+						status().isOk(),
+						header().string("X-Next-Cursor", "next"),
+						jsonPath("$.length()", equalTo(1))
+				);
+	}
+
+	@Test
+	@SneakyThrows
+	void getBookersBookings_whenLastPage_thenNoNextCursorHeader() {
+		// when
+		when(bookingService.getBookersBookingsPage(1, BookingState.ALL, "abc", null))
+				.thenReturn(new BookingPageDto(List.of(), null));
+		mvc.perform(get("/bookings")
+						.accept(MediaType.APPLICATION_JSON)
+						.param("cursor", "abc")
+						.header("X-Sharer-User-Id", "1"))
+
+				// then
+				.andExpectAll(
+						status().isOk(),
+						header().doesNotExist("X-Next-Cursor")
+				);
+	}
+
+}
@@ -11,6 +11,7 @@ import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.user.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -50,9 +51,31 @@ class BookingJpaRepositoryTest {
 		anbStart = LocalDateTime.now().plusDays(19);
 		anbEnd = LocalDateTime.now().plusDays(20);
 
-		//lastBooking = Booking.builder().start(lbStart).end(lbEnd).item(item).booker(booker).status(BookingStatus.APPROVED).build();
-		//nextBooking = Booking.builder().start(nbStart).end(nbEnd).item(item).booker(booker).status(BookingStatus.APPROVED).build();
-		//afterNextBooking = Booking.builder().start(anbStart).end(anbEnd).item(item).booker(booker).status(BookingStatus.APPROVED).build();
+		//lastBooking = Booking.builder().start(lbStart).end(lbEnd).item(item).booker(booker).ownerId(owner.getId()).status(BookingStatus.APPROVED).build();
+		//nextBooking = Booking.builder().start(nbStart).end(nbEnd).item(item).booker(booker).ownerId(owner.getId()).status(BookingStatus.APPROVED).build();
+		//afterNextBooking = Booking.builder().start(anbStart).end(anbEnd).item(item).booker(booker).ownerId(owner.getId()).status(BookingStatus.APPROVED).build();
+	}
+
+	@Test
+	@Transactional
+	void findAllApprovedEndedBetween_whenBookingsEndedInAndOutOfPeriod_thenOnlyApprovedInPeriodReturned() {
+		// given
+		em.persist(owner);
+		em.persist(booker);
+		Item persistedItem = em.persist(item);
+		Booking finished = em.persist(Booking.builder().start(lbStart).end(lbEnd).item(persistedItem).booker(booker)
+				.ownerId(owner.getId()).status(BookingStatus.APPROVED).build());
+		em.persist(Booking.builder().start(lbStart).end(lbEnd).item(persistedItem).booker(booker)
+				.ownerId(owner.getId()).status(BookingStatus.REJECTED).build());
+		em.persist(Booking.builder().start(nbStart).end(nbEnd).item(persistedItem).booker(booker)
+				.ownerId(owner.getId()).status(BookingStatus.APPROVED).build());
+		// when
+		List<BookingStatusProjection> bookings = repository.findAllApprovedEndedBetween(lbEnd.minusDays(1),
+				LocalDateTime.now());
+		// then
+		assertThat(bookings.size(), equalTo(1));
+		assertThat(bookings.get(0).getId(), equalTo(finished.getId()));
+		assertThat(bookings.get(0).getBookerId(), equalTo(booker.getId()));
 	}
 
 	@Test
@@ -76,7 +99,7 @@ class BookingJpaRepositoryTest {
 		em.persist(booker);
 		Item persistedItem = em.persist(item);
 		Booking lastBooking = Booking.builder()
-				.start(lbStart).end(lbEnd).item(persistedItem).booker(booker).status(BookingStatus.APPROVED).build();
+				.start(lbStart).end(lbEnd).item(persistedItem).booker(booker).ownerId(owner.getId()).status(BookingStatus.APPROVED).build();
 		em.persist(lastBooking);
 		// when
 		List<Booking> bookingList = repository.findLastAndNextBooking(persistedItem.getId(), LocalDateTime.now());
@@ -92,9 +115,9 @@ class BookingJpaRepositoryTest {
 		em.persist(booker);
 		Item persistedItem = em.persist(item);
 		Booking lastBooking = Booking.builder()
-				.start(lbStart).end(lbEnd).item(persistedItem).booker(booker).status(BookingStatus.APPROVED).build();
+				.start(lbStart).end(lbEnd).item(persistedItem).booker(booker).ownerId(owner.getId()).status(BookingStatus.APPROVED).build();
 		Booking nextBooking = Booking.builder()
-				.start(nbStart).end(nbEnd).item(persistedItem).booker(booker).status(BookingStatus.APPROVED).build();
+				.start(nbStart).end(nbEnd).item(persistedItem).booker(booker).ownerId(owner.getId()).status(BookingStatus.APPROVED).build();
 		em.persist(lastBooking);
 		em.persist(nextBooking);
 		// when
@@ -111,11 +134,11 @@ class BookingJpaRepositoryTest {
 		em.persist(booker);
 		Item persistedItem =  em.persist(item);
 		Booking lastBooking = Booking.builder()
-				.start(lbStart).end(lbEnd).item(persistedItem).booker(booker).status(BookingStatus.APPROVED).build();
+				.start(lbStart).end(lbEnd).item(persistedItem).booker(booker).ownerId(owner.getId()).status(BookingStatus.APPROVED).build();
 		Booking nextBooking = Booking.builder()
-				.start(nbStart).end(nbEnd).item(persistedItem).booker(booker).status(BookingStatus.APPROVED).build();
+				.start(nbStart).end(nbEnd).item(persistedItem).booker(booker).ownerId(owner.getId()).status(BookingStatus.APPROVED).build();
 		Booking afterNextBooking = Booking.builder()
-				.start(anbStart).end(anbEnd).item(persistedItem).booker(booker).status(BookingStatus.APPROVED).build();
+				.start(anbStart).end(anbEnd).item(persistedItem).booker(booker).ownerId(owner.getId()).status(BookingStatus.APPROVED).build();
 		em.persist(lastBooking);
 		em.persist(nextBooking);
 		em.persist(afterNextBooking);
@@ -125,4 +148,53 @@ class BookingJpaRepositoryTest {
 		assertThat(bookingList, containsInAnyOrder(lastBooking, nextBooking));
 	}
 
-}
\ No newline at end of file
+	@Test
+	@Transactional
+	void findFirstByStartDesc_whenStartsTie_thenOrderedByIdDescAndLimited() {
+		// given
+		em.persist(owner);
+		em.persist(booker);
+		Item persistedItem = em.persist(item);
+		// Cursors carry timestamps read back from the database, which keeps microseconds only
+		LocalDateTime nbStart = this.nbStart.truncatedTo(ChronoUnit.SECONDS);
+		Booking first = em.persist(Booking.builder()
+				.start(nbStart).end(nbEnd).item(persistedItem).booker(booker).ownerId(owner.getId()).status(BookingStatus.WAITING).build());
+		Booking second = em.persist(Booking.builder()
+				.start(nbStart).end(nbEnd).item(persistedItem).booker(booker).ownerId(owner.getId()).status(BookingStatus.WAITING).build());
+		Booking latest = em.persist(Booking.builder()
+				.start(anbStart).end(anbEnd).item(persistedItem).booker(booker).ownerId(owner.getId()).status(BookingStatus.WAITING).build());
+		em.persist(Booking.builder()
+				.start(lbStart).end(lbEnd).item(persistedItem).booker(booker).ownerId(owner.getId()).status(BookingStatus.APPROVED).build());
+		QBooking booking = QBooking.booking;
+		// when
+		List<Booking> bookingList = repository.findFirstByStartDesc(booking.booker.id.eq(booker.getId()), 3);
+		List<Booking> afterSecond = repository.findFirstByStartDesc(booking.booker.id.eq(booker.getId())
+				.and(booking.start.lt(nbStart).or(booking.start.eq(nbStart).and(booking.id.lt(second.getId())))), 3);
+		// then
+		assertThat(bookingList, contains(latest, second, first));
+		assertThat(afterSecond.get(0), equalTo(first));
+		assertThat(afterSecond.size(), equalTo(2));
+	}
+
+	@Test
+	@Transactional
+	void findAll_whenOwnerIdPredicate_thenOnlyBookingsOfOwnersItemsReturned() {
+		// given
+		em.persist(owner);
+		em.persist(booker);
+		Item persistedItem = em.persist(item);
+		Item bookersItem = em.persist(Item.builder().name("Item B").description("Item B").available(true).owner(booker)
+				.build());
+		Booking ownersBooking = em.persist(Booking.builder()
+				.start(nbStart).end(nbEnd).item(persistedItem).booker(booker).ownerId(owner.getId())
+				.status(BookingStatus.WAITING).build());
+		em.persist(Booking.builder()
+				.start(nbStart).end(nbEnd).item(bookersItem).booker(owner).ownerId(booker.getId())
+				.status(BookingStatus.WAITING).build());
+		// when
+		Iterable<Booking> bookings = repository.findAll(QBooking.booking.ownerId.eq(owner.getId()));
+		// then
+		assertThat(bookings, contains(ownersBooking));
+	}
+
+}
@@ -0,0 +1,144 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.item.ItemRequestDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@SpringBootTest(properties = {
+		"db.name=test",
+		"shareit.booking.event-relay-enabled=false",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+				"ru.practicum.shareit.booking.BookingQueryPlanTestIT$SqlRecorder"
+}, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingQueryPlanTestIT {
+
+	private static final Pattern BOOKINGS_TABLE = Pattern.compile("\\bbookings(_history)?\\b",
+			Pattern.CASE_INSENSITIVE);
+
+	private final BookingService bookingService;
+	private final BookingJpaRepository bookingJpaRepository;
+	private final UserService userService;
+	private final ItemService itemService;
+	private final JdbcTemplate jdbcTemplate;
+
+	private int ownerId;
+	private int bookerId;
+	private int itemId;
+
+	@BeforeEach
+	void setUp() {
+		ownerId = userService.addUser(UserDto.builder().name("Owner").email("owner@mail.org").build()).getId();
+		bookerId = userService.addUser(UserDto.builder().name("Booker").email("booker@mail.org").build()).getId();
+		itemId = itemService.addItem(ItemRequestDto.builder().name("Item A").description("Item A").available(true)
+				.build(), ownerId).getId();
+		SqlRecorder.STATEMENTS.clear();
+	}
+
+	@Test
+	void getBookersBookings_whenAnyState_thenNoTableScan() {
+		for (BookingState state : BookingState.values()) {
+			bookingService.getBookersBookings(bookerId, state, null, null);
+			bookingService.getBookersBookings(bookerId, state, 0, 10);
+			bookingService.getBookersBookingsPage(bookerId, state, "", 10);
+		}
+		assertNoTableScan();
+	}
+
+	@Test
+	void getOwnersBookings_whenAnyState_thenNoTableScan() {
+		for (BookingState state : BookingState.values()) {
+			bookingService.getOwnersBookings(ownerId, state, null, null);
+			bookingService.getOwnersBookings(ownerId, state, 0, 10);
+			bookingService.getOwnersBookingsPage(ownerId, state, "", 10);
+		}
+		assertNoTableScan();
+	}
+
+	@Test
+	void repositoryQueries_whenExplained_thenNoTableScan() {
+		LocalDateTime now = LocalDateTime.now();
+		bookingJpaRepository.existsFinishedByItemIdAndBookerId(itemId, bookerId, now);
+		bookingJpaRepository.findArchivedById(1);
+		bookingJpaRepository.findLastAndNextBooking(itemId, now);
+		bookingJpaRepository.findAllApprovedByItemIdAndPeriod(itemId, now, now.plusDays(1));
+		bookingJpaRepository.findItemIdById(1);
+		bookingJpaRepository.findAllByStatusAndEndIsAfter(BookingStatus.APPROVED, now);
+		bookingJpaRepository.existsByItemIdAndStatusAndStartIsBeforeAndEndIsAfter(itemId, BookingStatus.APPROVED,
+				now.plusDays(1), now);
+		bookingJpaRepository.findAllWithBookerByIdIn(List.of(1, 2));
+		bookingJpaRepository.findAllStatusesByIdInAndOwnerId(List.of(1, 2), ownerId);
+		bookingJpaRepository.findAllStatusesByItemIdInAndStatusAndPeriod(List.of(itemId), BookingStatus.APPROVED, now,
+				now.plusDays(1));
+		bookingJpaRepository.updateStatusByIdIn(List.of(1, 2), BookingStatus.APPROVED, BookingStatus.WAITING);
+		bookingJpaRepository.findIdsToArchiveForUpdate(now, 10);
+		bookingJpaRepository.copyToHistory(List.of(1, 2));
+		bookingJpaRepository.deleteAllByIdInBatch(List.of(1, 2));
+		assertNoTableScan();
+	}
+
+	private void assertNoTableScan() {
+		List<String> statements = new ArrayList<>(SqlRecorder.STATEMENTS);
+		assertThat(statements, not(empty()));
+		for (String sql : statements) {
+			assertThat(sql, explain(sql), not(containsStringIgnoringCase("tableScan")));
+		}
+	}
+
+	// Plans don't depend on parameter values in H2, so every parameter is bound to null
+	private String explain(String sql) {
+		return jdbcTemplate.query(connection -> {
+			PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+			int parameterCount = statement.getParameterMetaData().getParameterCount();
+			for (int i = 1; i <= parameterCount; i++) {
+				statement.setObject(i, null);
+			}
+			return statement;
+		}, (ResultSet resultSet) -> {
+			StringBuilder plan = new StringBuilder();
+			while (resultSet.next()) {
+				plan.append(resultSet.getString(1));
+			}
+			return plan.toString();
+		});
+	}
+
+	public static class SqlRecorder implements StatementInspector {
+
+		static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			if (BOOKINGS_TABLE.matcher(sql).find()) {
+				STATEMENTS.add(sql);
+			}
+			return sql;
+		}
+
+	}
+
+}
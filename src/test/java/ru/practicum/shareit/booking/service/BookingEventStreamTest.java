@@ -0,0 +1,151 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.BookingEvent;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BookingEventStreamTest {
+
+	// Tasks are kept and run by the test, as the pool would run them
+	private final List<Runnable> tasks = new ArrayList<>();
+	private final BookingEventStream bookingEventStream = new BookingEventStream(tasks::add);
+
+	private final LocalDateTime since = LocalDateTime.now().minusSeconds(30);
+	private final BookingEvent event = event(1L);
+
+	@Test
+	void publish_whenBookerAndOwnerSubscribed_thenEventSentToBoth() throws IOException {
+		// given
+		SseEmitter owner = mock(SseEmitter.class);
+		SseEmitter booker = mock(SseEmitter.class);
+		SseEmitter stranger = mock(SseEmitter.class);
+		bookingEventStream.register(1, owner);
+		bookingEventStream.register(2, booker);
+		bookingEventStream.register(3, stranger);
+		// when
+		bookingEventStream.publish(List.of(event), since);
+		runTasks();
+		// then
+		verify(owner).send(any(SseEmitter.SseEventBuilder.class));
+		verify(booker).send(any(SseEmitter.SseEventBuilder.class));
+		verify(stranger, never()).send(any(SseEmitter.SseEventBuilder.class));
+	}
+
+	@Test
+	void publish_whenEventReadAgain_thenSentOnceUntilItLeavesTheWindow() throws IOException {
+		// given
+		SseEmitter booker = mock(SseEmitter.class);
+		bookingEventStream.register(2, booker);
+		// when
+		int sent = bookingEventStream.publish(List.of(event), since);
+		int sentAgain = bookingEventStream.publish(List.of(event), since);
+		int sentAfterWindow = bookingEventStream.publish(List.of(event), event.getCreated());
+		runTasks();
+		// then
+		assertThat(sent, equalTo(1));
+		assertThat(sentAgain, equalTo(0));
+		assertThat(sentAfterWindow, equalTo(1));
+		verify(booker, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+	}
+
+	@Test
+	void publish_whenSeveralEventsPending_thenOneDrainSendsEachOnceInOrder() throws IOException {
+		// given
+		SseEmitter booker = mock(SseEmitter.class);
+		bookingEventStream.register(2, booker);
+		ArgumentCaptor<SseEmitter.SseEventBuilder> sent = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+		// when
+		bookingEventStream.publish(List.of(event(1L), event(2L)), since);
+		bookingEventStream.publish(List.of(event(1L), event(2L), event(3L)), since);
+		// then
+		assertThat(tasks, hasSize(1));
+		runTasks();
+		verify(booker, times(3)).send(sent.capture());
+		assertThat(sent.getAllValues().stream().map(BookingEventStreamTest::eventId).collect(Collectors.toList()),
+				equalTo(List.of("1", "2", "3")));
+	}
+
+	@Test
+	void publish_whenSubscriberFallsBehind_thenSubscriberDropped() throws IOException {
+		// given
+		SseEmitter booker = mock(SseEmitter.class);
+		bookingEventStream.register(2, booker);
+		List<BookingEvent> events = IntStream.rangeClosed(1, BookingEventStream.MAX_PENDING_EVENTS + 1)
+				.mapToObj(id -> event((long) id))
+				.collect(Collectors.toList());
+		// when
+		bookingEventStream.publish(events, since);
+		runTasks();
+		// then
+		assertThat(bookingEventStream.getSubscriberCount(2), equalTo(0));
+		verify(booker).completeWithError(any(IllegalStateException.class));
+		verify(booker, never()).send(any(SseEmitter.SseEventBuilder.class));
+	}
+
+	@Test
+	void publish_whenSendFails_thenSubscriberDropped() throws IOException {
+		// given
+		SseEmitter booker = mock(SseEmitter.class);
+		IOException failure = new IOException("Broken pipe");
+		doThrow(failure).when(booker).send(any(SseEmitter.SseEventBuilder.class));
+		bookingEventStream.register(2, booker);
+		// when
+		bookingEventStream.publish(List.of(event), since);
+		runTasks();
+		// then
+		assertThat(bookingEventStream.getSubscriberCount(2), equalTo(0));
+		verify(booker).completeWithError(failure);
+	}
+
+	@Test
+	void register_whenStreamCompleted_thenSubscriberRemoved() {
+		// given
+		SseEmitter booker = mock(SseEmitter.class);
+		ArgumentCaptor<Runnable> onCompletion = ArgumentCaptor.forClass(Runnable.class);
+		bookingEventStream.register(2, booker);
+		bookingEventStream.register(2, mock(SseEmitter.class));
+		verify(booker).onCompletion(onCompletion.capture());
+		// when
+		onCompletion.getValue().run();
+		// then
+		assertThat(bookingEventStream.getSubscriberCount(2), equalTo(1));
+	}
+
+	private void runTasks() {
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+	}
+
+	private static BookingEvent event(Long id) {
+		return BookingEvent.builder()
+				.id(id)
+				.bookingId(1)
+				.itemId(1)
+				.bookerId(2)
+				.ownerId(1)
+				.status(BookingStatus.WAITING)
+				.build();
+	}
+
+	private static String eventId(SseEmitter.SseEventBuilder builder) {
+		String first = builder.build().iterator().next().getData().toString();
+		return first.substring("id:".length(), first.indexOf('\n'));
+	}
+
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingJpaRepository;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.item.entity.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+
+	@InjectMocks
+	private BookingIntervalIndex index;
+
+	@Mock
+	private BookingJpaRepository bookingJpaRepository;
+
+	private Item item;
+	private LocalDateTime start;
+
+	@BeforeEach
+	void setUp() {
+		item = Item.builder().id(1).build();
+		start = LocalDateTime.now().plusDays(1);
+	}
+
+	@Test
+	void warmUp_whenApprovedBookingsExist_thenTheirIntervalsAreIndexed() {
+		// when
+		when(bookingJpaRepository.findAllByStatusAndEndIsAfter(eq(BookingStatus.APPROVED), any()))
+				.thenReturn(List.of(booking(0, 2)));
+		index.warmUp();
+		// then
+		assertTrue(index.isReady());
+		assertTrue(index.overlaps(1, start.plusDays(1), start.plusDays(3)));
+		assertFalse(index.overlaps(2, start.plusDays(1), start.plusDays(3)));
+	}
+
+	@Test
+	void overlaps_whenIntervalsOnlyTouch_thenNoOverlap() {
+		// when
+		index.add(booking(2, 4));
+		// then
+		assertFalse(index.overlaps(1, start, start.plusDays(2)));
+		assertFalse(index.overlaps(1, start.plusDays(4), start.plusDays(5)));
+		assertTrue(index.overlaps(1, start.plusDays(1), start.plusDays(3)));
+		assertTrue(index.overlaps(1, start.plusDays(3), start.plusDays(5)));
+		assertTrue(index.overlaps(1, start, start.plusDays(6)));
+		assertTrue(index.overlaps(1, start.plusDays(2).plusHours(1), start.plusDays(2).plusHours(2)));
+	}
+
+	@Test
+	void overlaps_whenIntervalsMerged_thenGapsStayFree() {
+		// when
+		index.add(booking(0, 2));
+		index.add(booking(6, 8));
+		index.add(booking(1, 3));
+		index.add(booking(10, 12));
+		index.add(booking(5, 11));
+		// then
+		assertFalse(index.overlaps(1, start.plusDays(3), start.plusDays(5)));
+		assertFalse(index.overlaps(1, start.plusDays(12), start.plusDays(13)));
+		assertTrue(index.overlaps(1, start.plusDays(2).plusHours(23), start.plusDays(4)));
+		assertTrue(index.overlaps(1, start.plusDays(4), start.plusDays(5).plusHours(1)));
+		assertTrue(index.overlaps(1, start.plusDays(9), start.plusDays(9).plusHours(1)));
+	}
+
+	@Test
+	void add_whenIntervalEnded_thenItIsPruned() {
+		// when
+		index.add(Booking.builder().item(item).start(start.minusDays(5)).end(start.minusDays(3)).build());
+		index.add(booking(0, 1));
+		// then
+		assertFalse(index.overlaps(1, start.minusDays(4), start.minusDays(3)));
+		assertTrue(index.overlaps(1, start, start.plusDays(1)));
+	}
+
+	private Booking booking(int startDay, int endDay) {
+		return Booking.builder()
+				.item(item)
+				.start(start.plusDays(startDay))
+				.end(start.plusDays(endDay))
+				.status(BookingStatus.APPROVED)
+				.build();
+	}
+
+}
@@ -4,32 +4,51 @@ import com.querydsl.core.types.Predicate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingEvent;
+import ru.practicum.shareit.booking.BookingEventJpaRepository;
 import ru.practicum.shareit.booking.BookingJpaRepository;
+import ru.practicum.shareit.booking.BookingHistoryProjection;
+import ru.practicum.shareit.booking.BookingStatusProjection;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingPointerDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
 import ru.practicum.shareit.booking.enums.BookingState;
 import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.exception.IncorrectStatusChangeException;
 import ru.practicum.shareit.booking.exception.ResourceNotAvailableException;
 import ru.practicum.shareit.booking.exception.SelfBookingException;
+import ru.practicum.shareit.exception.IncorrectCursorException;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
 import ru.practicum.shareit.exception.UnauthorizedChangeException;
 import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.PageCursor;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -37,8 +56,9 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class BookingServiceImplTest {
@@ -48,6 +68,20 @@ class BookingServiceImplTest {
 
 	@Mock
 	private BookingJpaRepository bookingJpaRepository;
+	@Mock
+	private LastAndNextBookingCache lastAndNextBookingCache;
+	@Mock
+	private BookingIntervalIndex bookingIntervalIndex;
+	@Mock
+	private ItemLocks itemLocks;
+	@Mock
+	private ItemAvailabilityCache itemAvailabilityCache;
+	@Mock
+	private BookingEventJpaRepository bookingEventJpaRepository;
+	@Mock
+	private BookingEventStream bookingEventStream;
+	@Mock
+	private CommentEligibilityCache commentEligibilityCache;
 
 	private UserService userService;
 	private ItemService itemService;
@@ -113,6 +147,31 @@ class BookingServiceImplTest {
 		// then
 		assertThat(bookingResponseDto.getStatus(), equalTo(BookingStatus.WAITING));
 		verify(bookingJpaRepository).save(any());
+		verify(bookingEventJpaRepository).save(argThat(event -> event.getStatus() == BookingStatus.WAITING
+				&& event.getBookerId().equals(2) && event.getItemId().equals(1)));
+	}
+
+	@Test
+	void addBooking_whenApprovedBookingOverlaps_thenResourceNotAvailableExceptionThrow() {
+		// when
+		when(userService.getUserEntityById(2)).thenReturn(booker);
+		when(itemService.getItemEntityById(anyInt())).thenReturn(item);
+		when(bookingIntervalIndex.isReady()).thenReturn(true);
+		when(bookingIntervalIndex.overlaps(1, bookingRequestDto.getStart(), bookingRequestDto.getEnd())).thenReturn(true);
+		// then
+		assertThrows(ResourceNotAvailableException.class, () -> bookingService.addBooking(bookingRequestDto, 2));
+		verify(bookingJpaRepository, never()).save(any());
+	}
+
+	@Test
+	void addBooking_whenIndexNotReady_thenOverlapCheckedInDatabase() {
+		// when
+		when(userService.getUserEntityById(2)).thenReturn(booker);
+		when(itemService.getItemEntityById(anyInt())).thenReturn(item);
+		when(bookingJpaRepository.existsByItemIdAndStatusAndStartIsBeforeAndEndIsAfter(1, BookingStatus.APPROVED,
+				bookingRequestDto.getEnd(), bookingRequestDto.getStart())).thenReturn(true);
+		// then
+		assertThrows(ResourceNotAvailableException.class, () -> bookingService.addBooking(bookingRequestDto, 2));
 	}
 
 	@Test
@@ -136,18 +195,124 @@ class BookingServiceImplTest {
 	@Test
 	void approveBooking_when_UserIsOwnerAndStatusIsWaiting_thenBookingApproved() {
 		// when
+		when(bookingJpaRepository.findItemIdById(1)).thenReturn(Optional.of(1));
 		when(bookingJpaRepository.findById(1)).thenReturn(Optional.of(booking));
 		when(userService.getUserEntityById(1)).thenReturn(owner);
 		when(bookingJpaRepository.save(any())).then(returnsFirstArg());
+		booking.setId(1);
+		when(bookingJpaRepository.findLastAndNextBooking(eq(1), any())).thenReturn(List.of(booking));
 		BookingResponseDto bookingResponseDto = bookingService.approveBooking(1, 1, true);
 		// then
 		assertThat(bookingResponseDto.getStatus(), equalTo(BookingStatus.APPROVED));
+		assertThat(item.getLastBookingId(), equalTo(1));
+		assertNull(item.getNextBookingId());
 		verify(bookingJpaRepository).save(any());
+		verify(bookingEventJpaRepository).save(argThat(event -> event.getStatus() == BookingStatus.APPROVED
+				&& event.getBookingId().equals(1)));
+		verify(lastAndNextBookingCache).invalidate(1);
+		verify(bookingIntervalIndex).add(booking);
+		verify(itemAvailabilityCache).invalidate(1);
+		InOrder inOrder = inOrder(itemLocks, itemService, bookingJpaRepository);
+		inOrder.verify(itemLocks).lockUntilCompletion(1);
+		inOrder.verify(itemService).getItemEntityByIdForUpdate(1);
+		inOrder.verify(bookingJpaRepository).findById(1);
+	}
+
+	@Test
+	void approveBookings_whenDecisionsMixed_thenEachDecisionGetsItsResult() {
+		// given
+		LocalDateTime start = LocalDateTime.now().plusDays(1);
+		BookingStatusProjection toApprove = projection(1, 1, BookingStatus.WAITING, start, start.plusDays(1));
+		BookingStatusProjection toReject = projection(2, 1, BookingStatus.WAITING, start, start.plusDays(1));
+		BookingStatusProjection decided = projection(4, 1, BookingStatus.APPROVED, start.plusDays(5), start.plusDays(6));
+		BookingStatusProjection overlapping = projection(5, 1, BookingStatus.WAITING, start, start.plusHours(1));
+		List<BookingDecisionDto> decisions = List.of(
+				new BookingDecisionDto(1, true),
+				new BookingDecisionDto(2, false),
+				new BookingDecisionDto(3, true),
+				new BookingDecisionDto(1, false),
+				new BookingDecisionDto(4, false),
+				new BookingDecisionDto(5, true));
+		// when
+		when(bookingJpaRepository.findAllStatusesByIdInAndOwnerId(any(), eq(1)))
+				.thenReturn(List.of(toApprove, toReject, decided, overlapping));
+		when(itemService.getItemEntitiesByIdForUpdate(any())).thenReturn(List.of(item));
+		when(bookingJpaRepository.findAllStatusesByItemIdInAndStatusAndPeriod(any(), eq(BookingStatus.APPROVED),
+				eq(start), eq(start.plusDays(1)))).thenReturn(List.of());
+		when(bookingJpaRepository.updateStatusByIdIn(List.of(1), BookingStatus.APPROVED, BookingStatus.WAITING))
+				.thenReturn(1);
+		when(bookingJpaRepository.updateStatusByIdIn(List.of(2), BookingStatus.REJECTED, BookingStatus.WAITING))
+				.thenReturn(1);
+		List<BookingDecisionResultDto> results = bookingService.approveBookings(1, decisions);
+		// then
+		assertThat(results, equalTo(List.of(
+				new BookingDecisionResultDto(1, BookingStatus.APPROVED, null),
+				new BookingDecisionResultDto(2, BookingStatus.REJECTED, null),
+				new BookingDecisionResultDto(3, null, "Booking not found"),
+				new BookingDecisionResultDto(1, null, "Duplicate decision"),
+				new BookingDecisionResultDto(4, BookingStatus.APPROVED, "Incorrect status change"),
+				new BookingDecisionResultDto(5, BookingStatus.WAITING, "Item not available"))));
+		verify(userService).getUserEntityById(1);
+		verify(itemLocks).lockAllUntilCompletion(Set.of(1));
+		verify(bookingIntervalIndex).add(any());
+		verify(itemAvailabilityCache).invalidate(1);
+		verify(bookingJpaRepository).findLastAndNextBooking(eq(1), any());
+		verify(bookingEventJpaRepository).saveAll(argThat(events -> isEvent(events, 1, BookingStatus.APPROVED)));
+		verify(bookingEventJpaRepository).saveAll(argThat(events -> isEvent(events, 2, BookingStatus.REJECTED)));
+	}
+
+	@Test
+	void approveBookings_whenBookingChangedConcurrently_thenObjectOptimisticLockingFailureExceptionThrown() {
+		// given
+		LocalDateTime start = LocalDateTime.now().plusDays(1);
+		// when
+		when(bookingJpaRepository.findAllStatusesByIdInAndOwnerId(any(), eq(1)))
+				.thenReturn(List.of(projection(1, 1, BookingStatus.WAITING, start, start.plusDays(1))));
+		when(bookingJpaRepository.updateStatusByIdIn(List.of(1), BookingStatus.REJECTED, BookingStatus.WAITING))
+				.thenReturn(0);
+		// then
+		assertThrows(ObjectOptimisticLockingFailureException.class,
+				() -> bookingService.approveBookings(1, List.of(new BookingDecisionDto(1, false))));
+	}
+
+	@Test
+	void approveBooking_when_BookingNotFound_thenResourceNotFoundExceptionThrown() {
+		// then
+		assertThrows(ResourceNotFoundException.class, () -> bookingService.approveBooking(1, 1, true));
+		verifyNoInteractions(itemLocks);
+	}
+
+	@Test
+	void approveBooking_when_ApprovedBookingOverlaps_thenResourceNotAvailableExceptionThrown() {
+		// when
+		when(bookingJpaRepository.findItemIdById(1)).thenReturn(Optional.of(1));
+		when(bookingJpaRepository.findById(1)).thenReturn(Optional.of(booking));
+		when(userService.getUserEntityById(1)).thenReturn(owner);
+		when(bookingJpaRepository.existsByItemIdAndStatusAndStartIsBeforeAndEndIsAfter(1, BookingStatus.APPROVED,
+				booking.getEnd(), booking.getStart())).thenReturn(true);
+		// then
+		assertThrows(ResourceNotAvailableException.class, () -> bookingService.approveBooking(1, 1, true));
+		assertThat(booking.getStatus(), equalTo(BookingStatus.WAITING));
+		verify(bookingIntervalIndex, never()).add(any());
+	}
+
+	@Test
+	void approveBooking_when_Rejected_thenBookingPointersNotChanged() {
+		// when
+		when(bookingJpaRepository.findItemIdById(1)).thenReturn(Optional.of(1));
+		when(bookingJpaRepository.findById(1)).thenReturn(Optional.of(booking));
+		when(userService.getUserEntityById(1)).thenReturn(owner);
+		when(bookingJpaRepository.save(any())).then(returnsFirstArg());
+		BookingResponseDto bookingResponseDto = bookingService.approveBooking(1, 1, false);
+		// then
+		assertThat(bookingResponseDto.getStatus(), equalTo(BookingStatus.REJECTED));
+		verify(bookingJpaRepository, never()).findLastAndNextBooking(any(), any());
 	}
 
 	@Test
 	void approveBooking_when_UserIsNotOwner_thenUnauthorizedChangeExceptionThrown() {
 		// when
+		when(bookingJpaRepository.findItemIdById(1)).thenReturn(Optional.of(1));
 		when(bookingJpaRepository.findById(1)).thenReturn(Optional.of(booking));
 		when(userService.getUserEntityById(2)).thenReturn(booker);
 		// then
@@ -159,6 +324,7 @@ class BookingServiceImplTest {
 		// given
 		booking.setStatus(BookingStatus.APPROVED);
 		// when
+		when(bookingJpaRepository.findItemIdById(1)).thenReturn(Optional.of(1));
 		when(bookingJpaRepository.findById(1)).thenReturn(Optional.of(booking));
 		when(userService.getUserEntityById(1)).thenReturn(owner);
 		// then
@@ -201,9 +367,53 @@ class BookingServiceImplTest {
 		// when
 		when(bookingJpaRepository.findAll(any(Predicate.class), any(PageRequest.class))).thenReturn(Page.empty());
 		// then
-		bookingService.getBookersBookings(2, BookingState.ALL, 0, 10);
+		bookingService.getBookersBookings(2, BookingState.WAITING, 0, 10);
+	}
+
+	@Test
+	void getBookersBookings_whenPastWithPagination_thenHistoryIncluded() {
+		// when
+		when(bookingJpaRepository.findAllWithHistory(eq(2), eq(true), any(LocalDateTime.class), isNull(), eq(10),
+				eq(10))).thenReturn(List.of(historyProjection()));
+		List<BookingResponseDto> bookings = bookingService.getBookersBookings(2, BookingState.PAST, 15, 10);
+		// then
+		assertThat(bookings.size(), equalTo(1));
+	}
+
+
+	@Test
+	void getBookersBookingsPage_whenMoreBookingsThanSize_thenNextCursorPointsAfterLastBooking() {
+		// given
+		booking.setId(5);
+		Booking nextPageBooking = Booking.builder().id(4).start(booking.getStart()).end(booking.getEnd())
+				.item(item).booker(booker).status(BookingStatus.WAITING).build();
+		// when
+		when(bookingJpaRepository.findFirstByStartDesc(any(), eq(2))).thenReturn(List.of(booking, nextPageBooking));
+		BookingPageDto page = bookingService.getBookersBookingsPage(2, BookingState.WAITING, "", 1);
+		// then
+		assertThat(page.getBookings().size(), equalTo(1));
+		PageCursor cursor = PageCursor.decode(page.getNextCursor());
+		assertThat(cursor.getTimestamp(), equalTo(booking.getStart()));
+		assertThat(cursor.getId(), equalTo(5));
 	}
 
+	@Test
+	void getOwnersBookingsPage_whenLastPage_thenNoNextCursor() {
+		// given
+		String cursor = new PageCursor(LocalDateTime.now(), 5).encode();
+		// when
+		when(bookingJpaRepository.findFirstByStartDesc(any(), eq(21))).thenReturn(List.of(booking));
+		BookingPageDto page = bookingService.getOwnersBookingsPage(1, BookingState.WAITING, cursor, null);
+		// then
+		assertThat(page.getBookings().size(), equalTo(1));
+		assertNull(page.getNextCursor());
+	}
+
+	@Test
+	void getOwnersBookingsPage_whenCursorMalformed_thenIncorrectCursorExceptionThrown() {
+		assertThrows(IncorrectCursorException.class,
+				() -> bookingService.getOwnersBookingsPage(1, BookingState.ALL, "not a cursor", null));
+	}
 
 	@Test
 	void getOwnersBookings_whenNoPagination_thenEmptyListReturned() {
@@ -221,40 +431,308 @@ class BookingServiceImplTest {
 		// when
 		when(bookingJpaRepository.findAll(any(Predicate.class), any(PageRequest.class))).thenReturn(Page.empty());
 		// then
-		bookingService.getOwnersBookings(1, BookingState.ALL, 0, 10);
+		bookingService.getOwnersBookings(1, BookingState.WAITING, 0, 10);
+	}
+
+	@Test
+	void getOwnersBookingsPage_whenAllWithCursor_thenHistorySeekedPastCursor() {
+		// given
+		PageCursor cursor = new PageCursor(LocalDateTime.now(), 5);
+		// when
+		when(bookingJpaRepository.findAllWithHistory(eq(1), eq(false), isNull(), any(PageCursor.class), isNull(),
+				eq(21))).thenReturn(List.of(historyProjection()));
+		BookingPageDto page = bookingService.getOwnersBookingsPage(1, BookingState.ALL, cursor.encode(), null);
+		// then
+		assertThat(page.getBookings().size(), equalTo(1));
+		assertNull(page.getNextCursor());
+	}
+
+
+	@Test
+	void getLastAndNextBookingOfItem_whenItemHasPointers_thenBookingsReadById() {
+		// given
+		item.setLastBookingId(1);
+		item.setNextBookingId(2);
+		booking.setId(1);
+		// when
+		when(lastAndNextBookingCache.generation(1)).thenReturn(7L);
+		when(itemService.getItemEntityById(1)).thenReturn(item);
+		when(bookingJpaRepository.findAllWithBookerByIdIn(List.of(1, 2))).thenReturn(List.of(booking));
+		List<BookingPointerDto> bookings = bookingService.getLastAndNextBookingOfItem(1);
+		// then
+		assertThat(bookings, equalTo(List.of(new BookingPointerDto(1, booker.getId(), booking.getStart()))));
+		verify(bookingJpaRepository, never()).findLastAndNextBooking(any(), any());
+		verify(lastAndNextBookingCache).put(eq(1), eq(7L), eq(bookings), any());
+	}
+
+	@Test
+	void getLastAndNextBookingOfItem_whenNextBookingStarted_thenBookingsReadAsRolledForward() {
+		// given
+		item.setNextBookingId(1);
+		booking.setId(1);
+		booking.setStatus(BookingStatus.APPROVED);
+		Booking nextBooking = Booking.builder().id(2).start(LocalDateTime.now().plusDays(1))
+				.end(LocalDateTime.now().plusDays(2)).item(item).booker(booker).status(BookingStatus.APPROVED).build();
+		// when
+		when(itemService.getItemEntityById(1)).thenReturn(item);
+		when(bookingJpaRepository.findAllWithBookerByIdIn(List.of(1))).thenReturn(List.of(booking));
+		when(bookingJpaRepository.findLastAndNextBooking(eq(1), any())).thenReturn(List.of(booking, nextBooking));
+		List<BookingPointerDto> bookings = bookingService.getLastAndNextBookingOfItem(1);
+		// then
+		assertThat(bookings, equalTo(List.of(new BookingPointerDto(1, booker.getId(), booking.getStart()),
+				new BookingPointerDto(2, booker.getId(), nextBooking.getStart()))));
+		assertNull(item.getLastBookingId());
+		assertThat(item.getNextBookingId(), equalTo(1));
+		// The cache gets the pair read from BOOKINGS, which expires when the new next booking starts
+		verify(lastAndNextBookingCache).put(eq(1), anyLong(), eq(bookings), any());
+	}
+
+	@Test
+	void getLastAndNextBookingOfItem_whenCached_thenNothingRead() {
+		// when
+		BookingPointerDto pointer = new BookingPointerDto(1, 2, booking.getStart());
+		when(lastAndNextBookingCache.get(eq(1), any())).thenReturn(Optional.of(List.of(pointer)));
+		List<BookingPointerDto> bookings = bookingService.getLastAndNextBookingOfItem(1);
+		// then
+		assertThat(bookings, equalTo(List.of(pointer)));
+		verifyNoInteractions(itemService);
+		verifyNoInteractions(bookingJpaRepository);
 	}
 
+	@Test
+	void getLastAndNextBookingOfItem_whenItemHasNoPointers_thenNoBookingsRead() {
+		// when
+		when(itemService.getItemEntityById(1)).thenReturn(item);
+		List<BookingPointerDto> bookings = bookingService.getLastAndNextBookingOfItem(1);
+		// then
+		assertTrue(bookings.isEmpty());
+		verifyNoInteractions(bookingJpaRepository);
+	}
 
 	@Test
-	void getLastAndNextBookingOfItem() {
+	void rollForwardBookingPointers_whenNextBookingStarted_thenItBecomesLast() {
+		// given
+		booking.setId(1);
+		booking.setStatus(BookingStatus.APPROVED);
+		item.setNextBookingId(1);
+		Booking nextBooking = Booking.builder().id(2).start(LocalDateTime.now().plusDays(1))
+				.end(LocalDateTime.now().plusDays(2)).item(item).booker(booker).status(BookingStatus.APPROVED).build();
 		// when
-		bookingService.getLastAndNextBookingOfItem(1);
+		when(itemService.getItemsWithStartedNextBooking(any())).thenReturn(List.of(item));
+		when(bookingJpaRepository.findLastAndNextBooking(eq(1), any())).thenReturn(List.of(booking, nextBooking));
+		bookingService.rollForwardBookingPointers();
 		// then
-		verify(bookingJpaRepository).findLastAndNextBooking(anyInt(), any());
+		assertThat(item.getLastBookingId(), equalTo(1));
+		assertThat(item.getNextBookingId(), equalTo(2));
 	}
 
 	@Test
-	void getFinishedBookingsByItemAndBooker() {
+	void rollForwardBookingPointers_whenBookingsFinishedSinceLastPass_thenPairsRecorded() {
+		// given
+		LocalDateTime recordedUntil = LocalDateTime.now().minusMinutes(1);
+		BookingStatusProjection finished = projection(1, 3, BookingStatus.APPROVED, recordedUntil.minusDays(1),
+				recordedUntil.plusSeconds(30));
 		// when
-		bookingService.getFinishedBookingsByItemAndBooker(item, booker);
+		when(commentEligibilityCache.getRecordedUntil()).thenReturn(recordedUntil);
+		when(bookingJpaRepository.findAllApprovedEndedBetween(eq(recordedUntil), any())).thenReturn(List.of(finished));
+		bookingService.rollForwardBookingPointers();
 		// then
-		verify(bookingJpaRepository).findAllByItemAndBookerAndStatusAndEndIsLessThanOrderByStartDesc(any(), any(), any(), any());
+		verify(commentEligibilityCache).put(3, finished.getBookerId());
+		verify(commentEligibilityCache).setRecordedUntil(argThat(until -> !until.isBefore(finished.getEnd())));
 	}
 
 	@Test
-	void findAllByItemOwnerId() {
+	void hasFinishedBooking_whenFinishedBookingExists_thenPairCached() {
 		// when
-		bookingService.findAllByItemOwnerId(1);
+		when(bookingJpaRepository.existsFinishedByItemIdAndBookerId(eq(1), eq(2), any())).thenReturn(true);
+		boolean finished = bookingService.hasFinishedBooking(1, 2);
 		// then
-		verify(bookingJpaRepository).findAllByItemOwnerId(any());
+		assertTrue(finished);
+		verify(commentEligibilityCache).put(1, 2);
 	}
 
 	@Test
-	void findAllByItems() {
+	void hasFinishedBooking_whenPairCached_thenDatabaseNotQueried() {
 		// when
-		bookingService.findAllByItems(Arrays.asList(item));
+		when(commentEligibilityCache.contains(1, 2)).thenReturn(true);
+		boolean finished = bookingService.hasFinishedBooking(1, 2);
 		// then
-		verify(bookingJpaRepository).findAllByItemIn(any());
+		assertTrue(finished);
+		verify(bookingJpaRepository, never()).existsFinishedByItemIdAndBookerId(any(), any(), any());
+	}
+
+	@Test
+	void hasFinishedBooking_whenNoFinishedBooking_thenPairNotCached() {
+		// when
+		when(bookingJpaRepository.existsFinishedByItemIdAndBookerId(eq(1), eq(2), any())).thenReturn(false);
+		boolean finished = bookingService.hasFinishedBooking(1, 2);
+		// then
+		assertFalse(finished);
+		verify(commentEligibilityCache, never()).put(any(), any());
+	}
+
+	@Test
+	void getFreeIntervals_whenBookingsInsidePeriod_thenGapsBetweenMergedBookingsReturned() {
+		// given
+		LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+		LocalDateTime to = from.plusDays(10);
+		BookingStatusProjection first = projection(1, 1, BookingStatus.APPROVED, from.minusDays(1), from.plusDays(2));
+		BookingStatusProjection touching = projection(2, 1, BookingStatus.APPROVED, from.plusDays(2), from.plusDays(3));
+		BookingStatusProjection inner = projection(3, 1, BookingStatus.APPROVED, from.plusDays(5), from.plusDays(6));
+		// when
+		when(bookingJpaRepository.findAllApprovedByItemIdAndPeriod(1, from, to))
+				.thenReturn(List.of(first, touching, inner));
+		List<FreeIntervalDto> freeIntervals = bookingService.getFreeIntervals(1, from, to);
+		// then
+		assertThat(freeIntervals, equalTo(List.of(
+				new FreeIntervalDto(from.plusDays(3), from.plusDays(5)),
+				new FreeIntervalDto(from.plusDays(6), to))));
+		verify(itemService).getItemEntityById(1);
+		verify(itemAvailabilityCache).put(1, 0L, from, to, freeIntervals);
+	}
+
+	@Test
+	void getFreeIntervals_whenCached_thenBookingsNotRead() {
+		// given
+		LocalDateTime from = LocalDateTime.now();
+		List<FreeIntervalDto> freeIntervals = List.of(new FreeIntervalDto(from, from.plusDays(1)));
+		// when
+		when(itemAvailabilityCache.get(1, from, from.plusDays(1))).thenReturn(Optional.of(freeIntervals));
+		// then
+		assertThat(bookingService.getFreeIntervals(1, from, from.plusDays(1)), equalTo(freeIntervals));
+		verifyNoInteractions(bookingJpaRepository);
+	}
+
+	@Test
+	void getBookingById_whenBookingArchived_thenArchivedBookingReturned() {
+		// when
+		when(userService.getUserEntityById(2)).thenReturn(booker);
+		when(bookingJpaRepository.findById(1)).thenReturn(Optional.empty());
+		when(bookingJpaRepository.findArchivedById(1)).thenReturn(Optional.of(historyProjection()));
+		BookingResponseDto bookingResponseDto = bookingService.getBookingById(1, 2);
+		// then
+		assertThat(bookingResponseDto.getStatus(), equalTo(BookingStatus.APPROVED));
+		assertThat(bookingResponseDto.getItem().getName(), equalTo("Item A"));
+	}
+
+	@Test
+	void archiveFinishedBookings_whenBookingsFound_thenCopiedAndDeleted() {
+		// when
+		when(bookingJpaRepository.findIdsToArchiveForUpdate(any(), eq(500))).thenReturn(List.of(1, 2));
+		int archived = bookingService.archiveFinishedBookings();
+		// then
+		assertThat(archived, equalTo(2));
+		InOrder inOrder = inOrder(bookingJpaRepository);
+		inOrder.verify(bookingJpaRepository).copyToHistory(List.of(1, 2));
+		inOrder.verify(bookingJpaRepository).deleteAllByIdInBatch(List.of(1, 2));
+	}
+
+	@Test
+	void archiveFinishedBookings_whenNothingToArchive_thenNothingCopied() {
+		// when
+		when(bookingJpaRepository.findIdsToArchiveForUpdate(any(), anyInt())).thenReturn(List.of());
+		int archived = bookingService.archiveFinishedBookings();
+		// then
+		assertThat(archived, equalTo(0));
+		verify(bookingJpaRepository, never()).copyToHistory(any());
+	}
+
+	@Test
+	void subscribeToEvents_whenUserExists_thenStreamOpened() {
+		// given
+		SseEmitter emitter = new SseEmitter();
+		// when
+		when(userService.getUserEntityById(2)).thenReturn(booker);
+		when(bookingEventStream.subscribe(2)).thenReturn(emitter);
+		// then
+		assertThat(bookingService.subscribeToEvents(2), equalTo(emitter));
+	}
+
+	@Test
+	void subscribeToEvents_whenUserNotFound_thenResourceNotFoundExceptionThrown() {
+		// when
+		when(userService.getUserEntityById(2)).thenThrow(new ResourceNotFoundException("User", 2));
+		// then
+		assertThrows(ResourceNotFoundException.class, () -> bookingService.subscribeToEvents(2));
+		verifyNoInteractions(bookingEventStream);
+	}
+
+	@Test
+	void relayBookingEvents_whenEventsInLookbackWindow_thenPublishedAndKept() {
+		// given
+		BookingEvent created = BookingEvent.builder().id(1L).bookingId(1).status(BookingStatus.WAITING).build();
+		BookingEvent approved = BookingEvent.builder().id(2L).bookingId(1).status(BookingStatus.APPROVED).build();
+		ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+		// when
+		when(bookingEventJpaRepository.findAllByCreatedAfterOrderByIdAsc(any())).thenReturn(List.of(created, approved));
+		when(bookingEventStream.publish(eq(List.of(created, approved)), any())).thenReturn(2);
+		int relayed = bookingService.relayBookingEvents();
+		// then
+		assertThat(relayed, equalTo(2));
+		verify(bookingEventJpaRepository).findAllByCreatedAfterOrderByIdAsc(since.capture());
+		verify(bookingEventStream).publish(List.of(created, approved), since.getValue());
+		assertTrue(since.getValue().isBefore(LocalDateTime.now().minusSeconds(29)));
+		verify(bookingEventJpaRepository, never()).deleteAllInBatch(any());
+	}
+
+	@Test
+	void purgeBookingEvents_whenCalled_thenEventsOlderThanRetentionDeleted() {
+		// when
+		when(bookingEventJpaRepository.deleteAllCreatedBefore(any())).thenReturn(3);
+		int purged = bookingService.purgeBookingEvents();
+		// then
+		assertThat(purged, equalTo(3));
+		verify(bookingEventJpaRepository).deleteAllCreatedBefore(argThat(createdBefore ->
+				createdBefore.isBefore(LocalDateTime.now().minusMinutes(4))));
+	}
+
+	private static boolean isEvent(Iterable<BookingEvent> events, Integer bookingId, BookingStatus status) {
+		List<BookingEvent> eventList = new ArrayList<>();
+		events.forEach(eventList::add);
+		return eventList.size() == 1 && eventList.get(0).getBookingId().equals(bookingId)
+				&& eventList.get(0).getBookerId().equals(2) && eventList.get(0).getOwnerId().equals(1)
+				&& eventList.get(0).getStatus() == status;
+	}
+
+	private BookingHistoryProjection historyProjection() {
+		return new SpelAwareProxyProjectionFactory().createProjection(BookingHistoryProjection.class,
+				Map.of("id", 1, "start", booking.getStart(), "end", booking.getEnd(), "status", BookingStatus.APPROVED,
+						"itemId", 1, "itemName", "Item A", "bookerId", 2, "ownerId", 1));
+	}
+
+	private static BookingStatusProjection projection(Integer id, Integer itemId, BookingStatus status,
+	                                                  LocalDateTime start, LocalDateTime end) {
+		return new BookingStatusProjection() {
+			@Override
+			public Integer getId() {
+				return id;
+			}
+
+			@Override
+			public Integer getItemId() {
+				return itemId;
+			}
+
+			@Override
+			public Integer getBookerId() {
+				return 2;
+			}
+
+			@Override
+			public BookingStatus getStatus() {
+				return status;
+			}
+
+			@Override
+			public LocalDateTime getStart() {
+				return start;
+			}
+
+			@Override
+			public LocalDateTime getEnd() {
+				return end;
+			}
+		};
 	}
 
-}
\ No newline at end of file
+}
@@ -5,18 +5,37 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingJpaRepository;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.BookingState;
+import ru.practicum.shareit.booking.enums.BookingStatus;
 import ru.practicum.shareit.booking.exception.ResourceNotAvailableException;
+import ru.practicum.shareit.exception.ResourceNotFoundException;
 import ru.practicum.shareit.item.dto.item.ItemRequestDto;
+import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@SpringBootTest(properties = "db.name=test", webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@SpringBootTest(properties = {"db.name=test", "shareit.booking.event-relay-enabled=false"},
+		webEnvironment = SpringBootTest.WebEnvironment.NONE)
 @Transactional
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class BookingServiceImplTestIT {
@@ -24,6 +43,8 @@ public class BookingServiceImplTestIT {
 	private final BookingService bookingService;
 	private final UserService userService;
 	private final ItemService itemService;
+	private final BookingJpaRepository bookingJpaRepository;
+	private final EntityManager entityManager;
 
 	@Test
 	void addBooking_whenItemIsNotAvailable_thenThrowResourceNotAvailableException() {
@@ -45,4 +66,99 @@ public class BookingServiceImplTestIT {
 
 	}
 
+	@Test
+	void approveBooking_whenOverlappingBookingApproved_thenThrowResourceNotAvailableException() {
+		int ownerId = userService.addUser(UserDto.builder().name("Owner").email("owner@mail.org").build()).getId();
+		int bookerId = userService.addUser(UserDto.builder().name("Booker").email("booker@mail.org").build()).getId();
+		ItemRequestDto itemRequestDto = ItemRequestDto.builder()
+				.name("Item A")
+				.description("Item A")
+				.available(true)
+				.build();
+		int itemId = itemService.addItem(itemRequestDto, ownerId).getId();
+		LocalDateTime start = LocalDateTime.now().plusDays(1);
+		int firstId = bookingService.addBooking(BookingRequestDto.builder().itemId(itemId)
+				.start(start).end(start.plusDays(2)).build(), bookerId).getId();
+		int secondId = bookingService.addBooking(BookingRequestDto.builder().itemId(itemId)
+				.start(start.plusDays(1)).end(start.plusDays(3)).build(), bookerId).getId();
+
+		bookingService.approveBooking(firstId, ownerId, true);
+
+		assertThrows(ResourceNotAvailableException.class, () -> bookingService.approveBooking(secondId, ownerId, true));
+	}
+
+	@Test
+	void archiveFinishedBookings_whenBookingFinishedLongAgo_thenMovedToHistoryAndStillListed() {
+		int ownerId = userService.addUser(UserDto.builder().name("Owner").email("owner@mail.org").build()).getId();
+		int bookerId = userService.addUser(UserDto.builder().name("Booker").email("booker@mail.org").build()).getId();
+		int itemId = itemService.addItem(ItemRequestDto.builder().name("Item A").description("Item A").available(true)
+				.build(), ownerId).getId();
+		Item item = itemService.getItemEntityById(itemId);
+		LocalDateTime now = LocalDateTime.now();
+		Booking archived = bookingJpaRepository.save(Booking.builder().start(now.minusDays(50)).end(now.minusDays(49))
+				.item(item).booker(userService.getUserEntityById(bookerId)).ownerId(ownerId)
+				.status(BookingStatus.APPROVED).build());
+		Booking pointed = bookingJpaRepository.save(Booking.builder().start(now.minusDays(40)).end(now.minusDays(39))
+				.item(item).booker(userService.getUserEntityById(bookerId)).ownerId(ownerId)
+				.status(BookingStatus.APPROVED).build());
+		item.setLastBookingId(pointed.getId());
+		bookingJpaRepository.flush();
+
+		int archivedCount = bookingService.archiveFinishedBookings();
+
+		assertThat(archivedCount, equalTo(1));
+		assertFalse(bookingJpaRepository.existsById(archived.getId()));
+		assertTrue(bookingJpaRepository.findArchivedById(archived.getId()).isPresent());
+		assertThat(ids(bookingService.getBookersBookings(bookerId, BookingState.PAST, null, null)),
+				contains(pointed.getId(), archived.getId()));
+		assertThat(ids(bookingService.getOwnersBookings(ownerId, BookingState.ALL, 1, 1)), contains(archived.getId()));
+		assertTrue(bookingService.hasFinishedBooking(itemId, bookerId));
+		BookingResponseDto archivedDto = bookingService.getBookingById(archived.getId(), ownerId);
+		assertThat(archivedDto.getId(), equalTo(archived.getId()));
+		assertThat(archivedDto.getItem().getName(), equalTo("Item A"));
+		assertThat(archivedDto.getBooker().getId(), equalTo(bookerId));
+		assertThat(bookingService.getFreeIntervals(itemId, now.minusDays(51), now.minusDays(48)), hasSize(2));
+	}
+
+	@Test
+	void approveBookings_whenBookingsOverlapEachOther_thenOnlyFirstApproved() {
+		int ownerId = userService.addUser(UserDto.builder().name("Owner").email("owner@mail.org").build()).getId();
+		int bookerId = userService.addUser(UserDto.builder().name("Booker").email("booker@mail.org").build()).getId();
+		int itemId = itemService.addItem(ItemRequestDto.builder().name("Item A").description("Item A").available(true)
+				.build(), ownerId).getId();
+		LocalDateTime start = LocalDateTime.now().plusDays(1);
+		int firstId = bookingService.addBooking(BookingRequestDto.builder().itemId(itemId)
+				.start(start).end(start.plusDays(2)).build(), bookerId).getId();
+		int secondId = bookingService.addBooking(BookingRequestDto.builder().itemId(itemId)
+				.start(start.plusDays(1)).end(start.plusDays(3)).build(), bookerId).getId();
+		int thirdId = bookingService.addBooking(BookingRequestDto.builder().itemId(itemId)
+				.start(start.plusDays(5)).end(start.plusDays(6)).build(), bookerId).getId();
+		// Statuses are changed by a bulk UPDATE, bookings of earlier requests must not stay in the persistence context
+		entityManager.flush();
+		entityManager.clear();
+
+		List<BookingDecisionResultDto> results = bookingService.approveBookings(ownerId, List.of(
+				new BookingDecisionDto(firstId, true),
+				new BookingDecisionDto(secondId, true),
+				new BookingDecisionDto(thirdId, false)));
+		assertThrows(ResourceNotFoundException.class, () -> bookingService.approveBookings(bookerId + 100,
+				List.of(new BookingDecisionDto(firstId, true))));
+		List<BookingDecisionResultDto> otherOwnerResults = bookingService.approveBookings(bookerId,
+				List.of(new BookingDecisionDto(secondId, false)));
+
+		assertThat(results, contains(
+				new BookingDecisionResultDto(firstId, BookingStatus.APPROVED, null),
+				new BookingDecisionResultDto(secondId, BookingStatus.WAITING, "Item not available"),
+				new BookingDecisionResultDto(thirdId, BookingStatus.REJECTED, null)));
+		assertThat(otherOwnerResults, contains(new BookingDecisionResultDto(secondId, null, "Booking not found")));
+		assertThat(bookingService.getBookingById(firstId, ownerId).getStatus(), equalTo(BookingStatus.APPROVED));
+		assertThat(bookingService.getBookingById(secondId, ownerId).getStatus(), equalTo(BookingStatus.WAITING));
+		assertThat(bookingService.getBookingById(thirdId, ownerId).getStatus(), equalTo(BookingStatus.REJECTED));
+		assertThat(itemService.getItemEntityById(itemId).getNextBookingId(), equalTo(firstId));
+	}
+
+	private static List<Integer> ids(List<BookingResponseDto> bookings) {
+		return bookings.stream().map(BookingResponseDto::getId).collect(Collectors.toList());
+	}
+
 }
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommentEligibilityCacheTest {
+
+	private final CommentEligibilityCache cache = new CommentEligibilityCache();
+
+	@Test
+	void contains_whenPairPut_thenOnlyThatPairFound() {
+		// when
+		cache.put(1, 2);
+		// then
+		assertTrue(cache.contains(1, 2));
+		assertFalse(cache.contains(2, 1));
+		assertFalse(cache.contains(1, 3));
+	}
+
+	@Test
+	void put_whenCacheFull_thenLeastRecentlyReadPairEvicted() {
+		// given
+		for (int i = 0; i < CommentEligibilityCache.MAX_ENTRIES; i++) {
+			cache.put(i, 1);
+		}
+		// when
+		cache.contains(0, 1);
+		cache.put(CommentEligibilityCache.MAX_ENTRIES, 1);
+		// then
+		assertTrue(cache.contains(0, 1));
+		assertFalse(cache.contains(1, 1));
+		assertTrue(cache.contains(CommentEligibilityCache.MAX_ENTRIES, 1));
+	}
+
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemAvailabilityCacheTest {
+
+	private ItemAvailabilityCache cache;
+	private LocalDateTime from;
+	private List<FreeIntervalDto> freeIntervals;
+
+	@BeforeEach
+	void setUp() {
+		cache = new ItemAvailabilityCache();
+		from = LocalDateTime.now();
+		freeIntervals = List.of(new FreeIntervalDto(from, from.plusDays(1)));
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void get_whenSamePeriodCached_thenFreeIntervalsReturned() {
+		// when
+		put(1, from.plusDays(1));
+		// then
+		assertThat(cache.get(1, from, from.plusDays(1)), equalTo(Optional.of(freeIntervals)));
+		assertTrue(cache.get(1, from, from.plusDays(2)).isEmpty());
+		assertTrue(cache.get(2, from, from.plusDays(1)).isEmpty());
+	}
+
+	@Test
+	void get_whenItemInvalidated_thenAllPeriodsOfItemDropped() {
+		// when
+		put(1, from.plusDays(1));
+		put(1, from.plusDays(2));
+		put(2, from.plusDays(1));
+		cache.invalidate(1);
+		// then
+		assertTrue(cache.get(1, from, from.plusDays(1)).isEmpty());
+		assertTrue(cache.get(1, from, from.plusDays(2)).isEmpty());
+		assertThat(cache.get(2, from, from.plusDays(1)), equalTo(Optional.of(freeIntervals)));
+	}
+
+	@Test
+	void put_whenIntervalsReadBeforeCommittedInvalidation_thenEntryNotReturned() {
+		// given
+		TransactionSynchronizationManager.initSynchronization();
+		cache.invalidate(1);
+		long generation = cache.generation(1);
+		// when
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		cache.put(1, generation, from, from.plusDays(1), freeIntervals);
+		// then
+		assertTrue(cache.get(1, from, from.plusDays(1)).isEmpty());
+		put(1, from.plusDays(1));
+		assertThat(cache.get(1, from, from.plusDays(1)), equalTo(Optional.of(freeIntervals)));
+	}
+
+	@Test
+	void put_whenTooManyPeriodsOfItem_thenLeastRecentlyReadPeriodEvicted() {
+		// given
+		put(1, from.plusDays(1));
+		for (int i = 2; i <= ItemAvailabilityCache.MAX_PERIODS_PER_ITEM; i++) {
+			put(1, from.plusDays(i));
+		}
+		// when
+		cache.get(1, from, from.plusDays(1));
+		put(1, from.plusYears(1));
+		// then
+		assertTrue(cache.get(1, from, from.plusDays(1)).isPresent());
+		assertTrue(cache.get(1, from, from.plusDays(2)).isEmpty());
+	}
+
+	@Test
+	void put_whenTooManyItems_thenLeastRecentlyReadItemEvicted() {
+		// given
+		for (int itemId = 1; itemId <= ItemAvailabilityCache.MAX_ITEMS; itemId++) {
+			put(itemId, from.plusDays(1));
+		}
+		// when
+		cache.get(1, from, from.plusDays(1));
+		put(ItemAvailabilityCache.MAX_ITEMS + 1, from.plusDays(1));
+		// then
+		assertTrue(cache.get(1, from, from.plusDays(1)).isPresent());
+		assertTrue(cache.get(2, from, from.plusDays(1)).isEmpty());
+	}
+
+	private void put(Integer itemId, LocalDateTime to) {
+		cache.put(itemId, cache.generation(itemId), from, to, freeIntervals);
+	}
+
+}
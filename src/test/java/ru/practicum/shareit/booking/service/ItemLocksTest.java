@@ -0,0 +1,126 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.exception.ItemBusyException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemLocksTest {
+
+	private final ItemLocks itemLocks = new ItemLocks(256, 5000);
+
+	@Test
+	void lockUntilCompletion_whenNoTransaction_thenIllegalStateExceptionThrown() {
+		assertThrows(IllegalStateException.class, () -> itemLocks.lockUntilCompletion(1));
+	}
+
+	@Test
+	void lockUntilCompletion_whenSameItemLocked_thenSecondHolderWaitsForCompletion() throws Exception {
+		// given
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			itemLocks.lockUntilCompletion(1);
+			// when
+			CountDownLatch acquired = new CountDownLatch(1);
+			CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+				TransactionSynchronizationManager.initSynchronization();
+				try {
+					itemLocks.lockUntilCompletion(1);
+					acquired.countDown();
+					completeTransaction();
+				} finally {
+					TransactionSynchronizationManager.clearSynchronization();
+				}
+			});
+			// then
+			assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+			completeTransaction();
+			assertTrue(acquired.await(5, TimeUnit.SECONDS));
+			second.get(5, TimeUnit.SECONDS);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void lockUntilCompletion_whenHolderDoesNotComplete_thenItemBusyExceptionThrownAfterTimeout() throws Exception {
+		// given
+		ItemLocks shortLocks = new ItemLocks(256, 50);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			shortLocks.lockUntilCompletion(1);
+			// when
+			CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+				TransactionSynchronizationManager.initSynchronization();
+				try {
+					shortLocks.lockAllUntilCompletion(List.of(2, 1));
+				} finally {
+					TransactionSynchronizationManager.clearSynchronization();
+				}
+			});
+			// then
+			ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+			assertInstanceOf(ItemBusyException.class, e.getCause());
+			CompletableFuture<Boolean> released = CompletableFuture.supplyAsync(() -> shortLocks.stripe(2).tryLock());
+			assertTrue(released.get(5, TimeUnit.SECONDS));
+			completeTransaction();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void lockUntilCompletion_whenOtherStripeLocked_thenNoWait() throws Exception {
+		// given
+		assertNotSame(itemLocks.stripe(1), itemLocks.stripe(2));
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			itemLocks.lockUntilCompletion(1);
+			// when
+			CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> itemLocks.stripe(2).tryLock());
+			// then
+			assertTrue(second.get(5, TimeUnit.SECONDS));
+			completeTransaction();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void lockAllUntilCompletion_whenItemsLocked_thenAllStripesHeldUntilCompletion() throws Exception {
+		// given
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			itemLocks.lockAllUntilCompletion(List.of(2, 1, 257));
+			// when
+			CompletableFuture<Boolean> whileHeld = CompletableFuture.supplyAsync(() -> itemLocks.stripe(2).tryLock());
+			// then
+			assertFalse(whileHeld.get(5, TimeUnit.SECONDS));
+			completeTransaction();
+			CompletableFuture<Boolean> afterCompletion = CompletableFuture.supplyAsync(() -> {
+				boolean locked = itemLocks.stripe(1).tryLock();
+				if (locked) {
+					itemLocks.stripe(1).unlock();
+				}
+				return locked;
+			});
+			assertTrue(afterCompletion.get(5, TimeUnit.SECONDS));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	private static void completeTransaction() {
+		TransactionSynchronizationManager.getSynchronizations()
+				.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+	}
+
+}
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingPointerDto;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LastAndNextBookingCacheTest {
+
+	private LastAndNextBookingCache cache;
+	private LocalDateTime now;
+	private BookingPointerDto lastBooking;
+	private BookingPointerDto nextBooking;
+
+	@BeforeEach
+	void setUp() {
+		cache = new LastAndNextBookingCache();
+		now = LocalDateTime.now();
+		lastBooking = new BookingPointerDto(1, 3, now.minusDays(2));
+		nextBooking = new BookingPointerDto(2, 3, now.plusHours(1));
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void get_whenNextBookingNotStarted_thenCachedBookingsReturned() {
+		// when
+		cache.put(1, cache.generation(1), List.of(lastBooking, nextBooking), now);
+		// then
+		assertThat(cache.get(1, now.plusMinutes(59)), equalTo(Optional.of(List.of(lastBooking, nextBooking))));
+	}
+
+	@Test
+	void get_whenNextBookingStarted_thenEntryExpired() {
+		// when
+		cache.put(1, cache.generation(1), List.of(lastBooking, nextBooking), now);
+		// then
+		assertTrue(cache.get(1, now.plusHours(1)).isEmpty());
+		assertTrue(cache.get(1, now).isEmpty());
+	}
+
+	@Test
+	void put_whenNextBookingAlreadyStarted_thenNotCached() {
+		// given
+		BookingPointerDto startedBooking = new BookingPointerDto(2, 3, now.minusMinutes(1));
+		// when
+		cache.put(1, cache.generation(1), List.of(lastBooking, startedBooking), now);
+		// then
+		assertTrue(cache.get(1, now).isEmpty());
+	}
+
+	@Test
+	void get_whenNoNextBooking_thenEntryKeptUntilInvalidated() {
+		// when
+		cache.put(1, cache.generation(1), List.of(lastBooking), now);
+		cache.put(2, cache.generation(2), Collections.emptyList(), now);
+		// then
+		assertThat(cache.get(1, now.plusYears(1)), equalTo(Optional.of(List.of(lastBooking))));
+		assertThat(cache.get(2, now.plusYears(1)), equalTo(Optional.of(Collections.emptyList())));
+		cache.invalidate(1);
+		assertTrue(cache.get(1, now).isEmpty());
+	}
+
+	@Test
+	void put_whenBookingsReadBeforeCommittedInvalidation_thenEntryNotReturned() {
+		// given
+		TransactionSynchronizationManager.initSynchronization();
+		cache.invalidate(1);
+		long generation = cache.generation(1);
+		// when
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		cache.put(1, generation, List.of(lastBooking), now);
+		// then
+		assertTrue(cache.get(1, now).isEmpty());
+		cache.put(1, cache.generation(1), List.of(lastBooking), now);
+		assertThat(cache.get(1, now), equalTo(Optional.of(List.of(lastBooking))));
+	}
+
+}
@@ -8,6 +8,9 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.FreeIntervalDto;
+import ru.practicum.shareit.exception.IncorrectIntervalException;
+import ru.practicum.shareit.exception.IncorrectPageException;
 import ru.practicum.shareit.exception.UnauthorizedChangeException;
 import ru.practicum.shareit.exception.UnauthorizedCommentException;
 import ru.practicum.shareit.item.dto.comment.CommentRequestDto;
@@ -181,7 +184,7 @@ class ItemControllerTest {
 				.build();
 
 		// when
-		when(itemService.search("search text", null, null)).thenReturn(Collections.singletonList(itemRequestDto));
+		when(itemService.search("search text", null, null, null)).thenReturn(Collections.singletonList(itemRequestDto));
 		mvc.perform(get("/items/search")
 						.accept(MediaType.APPLICATION_JSON)
 						.param("text", "search text"))
@@ -193,11 +196,80 @@ class ItemControllerTest {
 				);
 	}
 
+	@Test
+	@SneakyThrows
+	void searchItems_whenKeysetPageRequested_thenPageParametersPassed() {
+		// when
+		when(itemService.search("search text", 7, null, 2)).thenReturn(Collections.emptyList());
+		mvc.perform(get("/items/search")
+						.accept(MediaType.APPLICATION_JSON)
+						.param("text", "search text")
+						.param("after", "7")
+						.param("size", "2"))
+				// then
+				.andExpectAll(
+						status().isOk(),
+						jsonPath("$", hasSize(0))
+				);
+		verify(itemService).search("search text", 7, null, 2);
+	}
+
+	@Test
+	@SneakyThrows
+	void searchItems_whenRankRequested_thenRankedSearchUsed() {
+		// when
+		when(itemService.searchRanked("search text", null, 5)).thenReturn(Collections.emptyList());
+		mvc.perform(get("/items/search")
+						.accept(MediaType.APPLICATION_JSON)
+						.param("text", "search text")
+						.param("rank", "true")
+						.param("size", "5"))
+				// then
+				.andExpectAll(
+						status().isOk(),
+						jsonPath("$", hasSize(0))
+				);
+		verify(itemService).searchRanked("search text", null, 5);
+		verify(itemService, never()).search(any(), any(), any(), any());
+	}
+
+	@Test
+	@SneakyThrows
+	void searchItems_whenRankedPageTooDeep_thenBadRequest() {
+		// when
+		when(itemService.searchRanked("search text", 1000, 5)).thenThrow(new IncorrectPageException("Too deep"));
+		mvc.perform(get("/items/search")
+						.accept(MediaType.APPLICATION_JSON)
+						.param("text", "search text")
+						.param("rank", "true")
+						.param("from", "1000")
+						.param("size", "5"))
+				// then
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@SneakyThrows
+	void searchItems_whenFuzzyRequested_thenFuzzySearchUsed() {
+		// when
+		when(itemService.searchFuzzy("drel", null, null)).thenReturn(Collections.emptyList());
+		mvc.perform(get("/items/search")
+						.accept(MediaType.APPLICATION_JSON)
+						.param("text", "drel")
+						.param("fuzzy", "true"))
+				// then
+				.andExpectAll(
+						status().isOk(),
+						jsonPath("$", hasSize(0))
+				);
+		verify(itemService).searchFuzzy("drel", null, null);
+	}
+
 	@Test
 	@SneakyThrows
 	void searchItems_whenTextBlank_thenEmptyListReturned() {
 		// when
-		when(itemService.search("", null, null)).thenReturn(Collections.emptyList());
+		when(itemService.search("", null, null, null)).thenReturn(Collections.emptyList());
 		mvc.perform(get("/items/search")
 						.accept(MediaType.APPLICATION_JSON)
 						.param("text", ""))
@@ -208,6 +280,36 @@ class ItemControllerTest {
 				);
 	}
 
+	@Test
+	@SneakyThrows
+	void suggestItemNames_whenPrefixNotBlank_thenNamesReturned() {
+		// when
+		when(itemService.suggest("дре", 3)).thenReturn(List.of("Дрель", "Дрезина"));
+		mvc.perform(get("/items/suggest")
+						.accept(MediaType.APPLICATION_JSON)
+						.param("prefix", "дре")
+						.param("size", "3"))
+				// then
+				.andExpectAll(
+						status().isOk(),
+						jsonPath("$", contains("Дрель", "Дрезина"))
+				);
+	}
+
+	@Test
+	@SneakyThrows
+	void suggestItemNames_whenPrefixBlank_thenEmptyListReturned() {
+		mvc.perform(get("/items/suggest")
+						.accept(MediaType.APPLICATION_JSON)
+						.param("prefix", " "))
+				// then
+				.andExpectAll(
+						status().isOk(),
+						jsonPath("$", hasSize(0))
+				);
+		verify(itemService, never()).suggest(any(), any());
+	}
+
 	@Test
 	@SneakyThrows
 	void postComment_whenUserHasFinishedBookings_thenCommentPosted() {
@@ -262,4 +364,38 @@ class ItemControllerTest {
 
 	}
 
-}
\ No newline at end of file
+	@Test
+	@SneakyThrows
+	void getAvailability_whenPeriodIsValid_thenFreeIntervalsReturned() {
+		// given
+		LocalDateTime from = LocalDateTime.of(2030, 1, 1, 12, 0);
+		LocalDateTime to = from.plusDays(2);
+		// when
+		when(itemService.getAvailability(1, from, to)).thenReturn(List.of(new FreeIntervalDto(from.plusDays(1), to)));
+		// then
+		mvc.perform(get("/items/1/availability")
+						.param("from", "2030-01-01T12:00:00")
+						.param("to", "2030-01-03T12:00:00"))
+				.andExpectAll(
+						status().isOk(),
+						jsonPath("$", hasSize(1)),
+						jsonPath("$[0].start", equalTo("2030-01-02T12:00:00"))
+				);
+	}
+
+	@Test
+	@SneakyThrows
+	void getAvailability_whenPeriodIsEmpty_thenStatusIsBadRequest() {
+		// when
+		when(itemService.getAvailability(anyInt(), any(), any()))
+				.thenThrow(new IncorrectIntervalException(LocalDateTime.now(), LocalDateTime.now()));
+		// then
+		mvc.perform(get("/items/1/availability")
+						.param("from", "2030-01-03T12:00:00")
+						.param("to", "2030-01-01T12:00:00"))
+				.andExpectAll(
+						status().isBadRequest()
+				);
+	}
+
+}
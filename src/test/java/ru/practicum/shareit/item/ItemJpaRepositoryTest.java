@@ -0,0 +1,173 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.enums.BookingStatus;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.repository.ItemTrigramRepository;
+import ru.practicum.shareit.item.repository.ItemWithBookingProjection;
+import ru.practicum.shareit.item.search.ItemDocument;
+import ru.practicum.shareit.item.search.Trigrams;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.utils.OffsetPageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Import(ItemTrigramRepository.class)
+class ItemJpaRepositoryTest {
+
+	@Autowired
+	private TestEntityManager em;
+	@Autowired
+	private ItemJpaRepository repository;
+	@Autowired
+	private ItemTrigramRepository trigramRepository;
+
+	private User owner;
+	private Item drill;
+	private Item hiddenDrill;
+
+	@BeforeEach
+	void setUp() {
+		owner = em.persist(User.builder().name("Owner").email("owner@mail.org").build());
+		drill = em.persist(Item.builder().name("Дрель").description("Простая").available(true).owner(owner).build());
+		hiddenDrill = em.persist(Item.builder().name("Дрель 100%").description("Ударная").available(false).owner(owner).build());
+		em.persist(Item.builder().name("Отвертка").description("Аккумуляторная").available(true).owner(owner).build());
+	}
+
+	@Test
+	void searchAvailable_whenNameMatchesUnavailableItem_thenItemNotReturned() {
+		// when
+		List<Item> items = repository.searchAvailable("дРЕль", 0, Pageable.unpaged());
+		// then
+		assertThat(items, contains(drill));
+	}
+
+	@Test
+	void searchAvailable_whenTextHasLikeWildcards_thenWildcardsAreLiterals() {
+		// when
+		hiddenDrill.setAvailable(true);
+		em.flush();
+		List<Item> items = repository.searchAvailable("0%", 0, Pageable.unpaged());
+		// then
+		assertThat(items, contains(hiddenDrill));
+	}
+
+	@Test
+	void searchAvailable_whenKeysetPageRequested_thenPageStartsAfterId() {
+		// given
+		Item secondDrill = em.persist(Item.builder().name("Дрель 2").description("").available(true).owner(owner).build());
+		Item thirdDrill = em.persist(Item.builder().name("Дрель 3").description("").available(true).owner(owner).build());
+		// when
+		List<Item> firstPage = repository.searchAvailable("дрель", 0, PageRequest.of(0, 2));
+		List<Item> secondPage = repository.searchAvailable("дрель", secondDrill.getId(), PageRequest.of(0, 2));
+		// then
+		assertThat(firstPage, contains(drill, secondDrill));
+		assertThat(secondPage, contains(thirdDrill));
+	}
+
+	@Test
+	void searchAvailable_whenOffsetNotMultipleOfSize_thenPageStartsAtOffset() {
+		// given
+		Item secondDrill = em.persist(Item.builder().name("Дрель 2").description("").available(true).owner(owner).build());
+		Item thirdDrill = em.persist(Item.builder().name("Дрель 3").description("").available(true).owner(owner).build());
+		// when
+		List<Item> page = repository.searchAvailable("дрель", 0, OffsetPageRequest.of(1, 2));
+		List<Item> tail = repository.searchAvailable("дрель", 0, OffsetPageRequest.of(2, null));
+		// then
+		assertThat(page, contains(secondDrill, thirdDrill));
+		assertThat(tail, contains(thirdDrill));
+	}
+
+	@Test
+	void searchAvailableByTrigrams_whenTrigramsMatch_thenOnlyExactSubstringMatchReturned() {
+		// given
+		Item anagram = em.persist(Item.builder().name("Ельдр").description("Не дрель").available(true).owner(owner).build());
+		em.flush();
+		trigramRepository.replaceTrigrams(drill.getId(), Trigrams.of(ItemDocument.of(drill)));
+		trigramRepository.replaceTrigrams(anagram.getId(), Trigrams.of(ItemDocument.of(anagram)));
+		Set<String> trigrams = Trigrams.of("ельд");
+		// when
+		List<Item> items = repository.searchAvailableByTrigrams("ЕЛЬД", trigrams, trigrams.size(), 0, Pageable.unpaged());
+		List<Item> noItems = repository.searchAvailableByTrigrams("рельд", Trigrams.of("рельд"), 3, 0,
+				Pageable.unpaged());
+		// then
+		assertThat(items, contains(anagram));
+		assertThat(noItems, empty());
+	}
+
+	@Test
+	void findAllWithBookingsByOwnerId_whenItemHasBookingPointers_thenBookersOfPointedBookingsReturned() {
+		// given
+		User booker = em.persist(User.builder().name("Booker").email("booker@mail.org").build());
+		LocalDateTime now = LocalDateTime.now();
+		Booking lastBooking = em.persist(Booking.builder().start(now.minusDays(2)).end(now.minusDays(1)).item(drill)
+				.booker(booker).ownerId(owner.getId()).status(BookingStatus.APPROVED).build());
+		Booking nextBooking = em.persist(Booking.builder().start(now.plusDays(1)).end(now.plusDays(2)).item(drill)
+				.booker(owner).ownerId(owner.getId()).status(BookingStatus.APPROVED).build());
+		drill.setLastBookingId(lastBooking.getId());
+		drill.setNextBookingId(nextBooking.getId());
+		em.flush();
+		// when
+		List<ItemWithBookingProjection> items = repository.findAllWithBookingsByOwnerId(owner.getId(),
+				Pageable.unpaged());
+		List<ItemWithBookingProjection> page = repository.findAllWithBookingsByOwnerId(owner.getId(),
+				PageRequest.of(1, 2));
+		// then
+		assertThat(items.size(), equalTo(3));
+		assertThat(items.get(0).getId(), equalTo(drill.getId()));
+		assertThat(items.get(0).getName(), equalTo(drill.getName()));
+		assertThat(items.get(0).getLastBookingId(), equalTo(lastBooking.getId()));
+		assertThat(items.get(0).getLastBookingBookerId(), equalTo(booker.getId()));
+		assertThat(items.get(0).getNextBookingId(), equalTo(nextBooking.getId()));
+		assertThat(items.get(0).getNextBookingBookerId(), equalTo(owner.getId()));
+		assertThat(items.get(1).getLastBookingId(), nullValue());
+		assertThat(items.get(1).getNextBookingId(), nullValue());
+		assertThat(page.size(), equalTo(1));
+		assertThat(page.get(0).getId(), equalTo(items.get(2).getId()));
+	}
+
+	@Test
+	void findAllWithStartedNextBooking_whenNextBookingStarted_thenItemReturned() {
+		// given
+		LocalDateTime now = LocalDateTime.now();
+		Booking nextBooking = em.persist(Booking.builder().start(now.plusHours(1)).end(now.plusDays(1)).item(drill)
+				.booker(owner).ownerId(owner.getId()).status(BookingStatus.APPROVED).build());
+		drill.setNextBookingId(nextBooking.getId());
+		em.flush();
+		// then
+		assertThat(repository.findAllWithStartedNextBooking(now), empty());
+		assertThat(repository.findAllWithStartedNextBooking(now.plusHours(2)), contains(drill));
+	}
+
+	@Test
+	void save_whenItemChangedConcurrently_thenOptimisticLockingFailureExceptionThrown() {
+		// given
+		em.flush();
+		Item staleDrill = Item.builder().id(drill.getId()).name("Дрель").description("Старая").available(true)
+				.owner(owner).version(drill.getVersion()).build();
+		drill.setDescription("Новая");
+		em.flush();
+		em.clear();
+		// then
+		assertThat(repository.findById(drill.getId()).orElseThrow().getVersion(), equalTo(staleDrill.getVersion() + 1));
+		assertThrows(OptimisticLockingFailureException.class, () -> repository.saveAndFlush(staleDrill));
+	}
+
+}
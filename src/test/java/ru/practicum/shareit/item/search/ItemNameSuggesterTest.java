@@ -0,0 +1,66 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.mockito.Mockito.when;
+
+class ItemNameSuggesterTest {
+
+	private ItemJpaRepository itemRepository;
+	private ItemNameSuggester suggester;
+
+	@BeforeEach
+	void setUp() {
+		itemRepository = Mockito.mock(ItemJpaRepository.class);
+		suggester = new ItemNameSuggester(itemRepository, 0);
+	}
+
+	@AfterEach
+	void tearDown() {
+		suggester.shutdown();
+	}
+
+	@Test
+	void suggest_whenNotBuilt_thenEmptyListReturned() {
+		assertThat(suggester.suggest("дре", 5), empty());
+	}
+
+	@Test
+	void suggest_whenPrefixMatches_thenMostFrequentCompletionsFirst() {
+		// when
+		when(itemRepository.findAvailableNames()).thenReturn(List.of("Дрель", "Дрель ударная", "дрель",
+				"Дрезина", "Отвертка", "Дрель"));
+		suggester.rebuild();
+		// then
+		assertThat(suggester.suggest("ДР", 10), contains("Дрель", "Дрезина", "Дрель ударная"));
+		assertThat(suggester.suggest("дрель", 10), contains("Дрель", "Дрель ударная"));
+		assertThat(suggester.suggest("дрель у", 10), contains("Дрель ударная"));
+		assertThat(suggester.suggest("дре", 1), contains("Дрель"));
+		assertThat(suggester.suggest("о", 10), contains("Отвертка"));
+		assertThat(suggester.suggest("дрн", 10), empty());
+		assertThat(suggester.suggest("дрель ударная и", 10), empty());
+	}
+
+	@Test
+	void suggest_whenRebuiltWithNewNames_thenNewTrieUsed() {
+		// given
+		when(itemRepository.findAvailableNames()).thenReturn(List.of("Дрель"));
+		suggester.rebuild();
+		// when
+		when(itemRepository.findAvailableNames()).thenReturn(List.of("Перфоратор"));
+		suggester.rebuild();
+		// then
+		assertThat(suggester.suggest("д", 10), empty());
+		assertThat(suggester.suggest("пер", 10), contains("Перфоратор"));
+	}
+
+}
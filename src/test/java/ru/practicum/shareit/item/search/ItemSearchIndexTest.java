@@ -0,0 +1,218 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+
+	@InjectMocks
+	private ItemSearchIndex index;
+
+	@Mock
+	private ItemJpaRepository itemRepository;
+
+	private Item drill;
+	private Item screwdriver;
+	private Item hiddenDrill;
+
+	@BeforeEach
+	void setUp() {
+		drill = Item.builder().id(1).name("Дрель").description("Простая дрель").available(true).build();
+		screwdriver = Item.builder().id(2).name("Отвертка").description("Аккумуляторная отвертка").available(true).build();
+		hiddenDrill = Item.builder().id(3).name("Дрель ударная").description("Не сдается").available(false).build();
+	}
+
+	@Test
+	void warmUp_whenItemsExist_thenIndexIsReady() {
+		// when
+		when(itemRepository.findAll()).thenReturn(List.of(drill, screwdriver));
+		index.warmUp();
+		// then
+		assertTrue(index.isReady());
+		assertThat(ids(index.search("дРеЛ", null, null, null)), contains(1));
+	}
+
+	@Test
+	void search_whenTextIsInsideWord_thenItemFound() {
+		// when
+		index.index(screwdriver);
+		// then
+		assertThat(ids(index.search("кумулятор", null, null, null)), contains(2));
+	}
+
+	@Test
+	void search_whenTextSpansSeveralWords_thenItemFound() {
+		// when
+		index.index(drill);
+		// then
+		assertThat(ids(index.search("ая дре", null, null, null)), contains(1));
+		assertThat(ids(index.search("ая  дре", null, null, null)), empty());
+	}
+
+	@Test
+	void search_whenItemNotAvailable_thenItemNotFoundByNameOrDescription() {
+		// when
+		index.index(drill);
+		index.index(hiddenDrill);
+		// then
+		assertThat(ids(index.search("дрель", null, null, null)), contains(1));
+		assertThat(ids(index.search("сдается", null, null, null)), empty());
+	}
+
+	@Test
+	void search_whenItemPatched_thenOldTermsAreForgotten() {
+		// given
+		index.index(drill);
+		// when
+		drill.setName("Перфоратор");
+		drill.setDescription("Мощный перфоратор");
+		index.index(drill);
+		// then
+		assertThat(ids(index.search("дрель", null, null, null)), empty());
+		assertThat(ids(index.search("перфоратор", null, null, null)), contains(1));
+	}
+
+	@Test
+	void search_whenTextShorterThanTrigram_thenItemFound() {
+		// given
+		Item saw = Item.builder().id(4).name("Пила 2").description("Ножовка").available(true).build();
+		// when
+		index.index(drill);
+		index.index(saw);
+		// then
+		assertThat(ids(index.search("ел", null, null, null)), contains(1));
+		assertThat(ids(index.search("2", null, null, null)), contains(4));
+		assertThat(ids(index.search("ж", null, null, null)), contains(4));
+	}
+
+	@Test
+	void search_whenTermLeftCatalogue_thenTermNotVerifiedAgain() {
+		// given
+		index.index(drill);
+		// when
+		drill.setName("Пила");
+		drill.setDescription("Простая пила");
+		index.index(drill);
+		// then
+		assertThat(ids(index.search("рел", null, null, null)), empty());
+		assertThat(ids(index.search("ила", null, null, null)), contains(1));
+	}
+
+	@Test
+	void search_whenTextHasNoWordCharacters_thenAllDocumentsVerified() {
+		// when
+		index.index(drill);
+		index.index(screwdriver);
+		// then
+		assertThat(ids(index.search(" ", null, null, null)), containsInAnyOrder(1, 2));
+	}
+
+	@Test
+	void search_whenPageRequested_thenOnlyPageReturnedInIdOrder() {
+		// given
+		Item secondDrill = Item.builder().id(4).name("Дрель 2").description("Еще одна дрель").available(true).build();
+		Item thirdDrill = Item.builder().id(5).name("Дрель 3").description("И еще одна").available(true).build();
+		// when
+		index.index(thirdDrill);
+		index.index(drill);
+		index.index(secondDrill);
+		// then
+		assertThat(ids(index.search("дрель", null, null, 2)), contains(1, 4));
+		assertThat(ids(index.search("дрель", 1, null, 2)), contains(4, 5));
+		assertThat(ids(index.search("дрель", null, 2, 2)), contains(5));
+	}
+
+	@Test
+	void searchRanked_whenNameAndDescriptionMatch_thenNameMatchRankedFirst() {
+		// given
+		Item drillCase = Item.builder().id(4).name("Кейс").description("Кейс для дрель и отвертка").available(true).build();
+		Item drillBits = Item.builder().id(5).name("Сверла").description("Сверла, подходят под любую дрель").available(true).build();
+		// when
+		index.index(drillCase);
+		index.index(drillBits);
+		index.index(drill);
+		index.index(screwdriver);
+		// then
+		assertThat(ids(index.searchRanked("дрель", 0, 10)), contains(1, 4, 5));
+		assertThat(ids(index.searchRanked("дрель", 0, 1)), contains(1));
+		assertThat(ids(index.searchRanked("дрель", 1, 1)), contains(4));
+	}
+
+	@Test
+	void searchRanked_whenItemReachedThroughSeveralTerms_thenRankedOnce() {
+		// given
+		Item drills = Item.builder().id(4).name("Дрели").description("Дрель и еще дрель-миксер").available(true).build();
+		// when
+		index.index(drills);
+		index.index(drill);
+		// then
+		assertThat(ids(index.searchRanked("дрел", 0, 10)), containsInAnyOrder(1, 4));
+		assertThat(index.searchRanked("дрел", 0, 1), hasSize(1));
+	}
+
+	@Test
+	void searchRanked_whenPageIsBeyondRankedResults_thenEmptyListReturned() {
+		// when
+		index.index(drill);
+		// then
+		assertThat(ids(index.searchRanked("дрель", 0, Integer.MAX_VALUE)), contains(1));
+		assertThat(index.searchRanked("дрель", ItemSearchIndex.MAX_RANKED_RESULTS, 10), empty());
+		assertThat(index.searchRanked("дрель", Integer.MAX_VALUE, 10), empty());
+	}
+
+	@Test
+	void searchFuzzy_whenNameMisspelledOrTransliterated_thenItemFound() {
+		// when
+		index.index(drill);
+		index.index(screwdriver);
+		index.index(hiddenDrill);
+		// then
+		assertThat(ids(index.searchFuzzy("drel", 0, 10)), contains(1));
+		assertThat(ids(index.searchFuzzy("дрел", 0, 10)), contains(1));
+		assertThat(ids(index.searchFuzzy("АтвЁртко", 0, 10)), contains(2));
+		assertThat(ids(index.searchFuzzy("простая", 0, 10)), empty());
+	}
+
+	@Test
+	void searchFuzzy_whenSeveralTokens_thenAllTokensMustMatchAndCloserFirst() {
+		// given
+		Item hammerDrill = Item.builder().id(4).name("Дрель ударная").description("").available(true).build();
+		Item hammer = Item.builder().id(5).name("Молоток").description("").available(true).build();
+		// when
+		index.index(hammer);
+		index.index(hammerDrill);
+		index.index(drill);
+		// then
+		assertThat(ids(index.searchFuzzy("дрэль", 0, 10)), contains(1, 4));
+		assertThat(ids(index.searchFuzzy("дрэль удорная", 0, 10)), contains(4));
+		assertThat(ids(index.searchFuzzy("дрэль", 1, 10)), contains(4));
+	}
+
+	@Test
+	void distance_whenStringsDiffer_thenLevenshteinDistanceReturned() {
+		assertThat(BkTree.distance("drel", "drel"), equalTo(0));
+		assertThat(BkTree.distance("drel", "drell"), equalTo(1));
+		assertThat(BkTree.distance("kitten", "sitting"), equalTo(3));
+		assertThat(BkTree.distance("", "abc"), equalTo(3));
+	}
+
+	private static List<Integer> ids(List<ItemDocument> documents) {
+		return documents.stream().map(ItemDocument::getId).collect(Collectors.toList());
+	}
+
+}
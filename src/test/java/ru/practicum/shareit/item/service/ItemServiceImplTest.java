@@ -7,10 +7,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.util.ReflectionTestUtils;
-import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dto.BookingPointerDto;
+import ru.practicum.shareit.booking.dto.BookingShortResponseDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.IncorrectIntervalException;
+import ru.practicum.shareit.exception.IncorrectPageException;
 import ru.practicum.shareit.exception.ResourceNotFoundException;
 import ru.practicum.shareit.exception.UnauthorizedCommentException;
 import ru.practicum.shareit.item.dto.comment.CommentRequestDto;
@@ -22,10 +26,16 @@ import ru.practicum.shareit.item.entity.Comment;
 import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.item.repository.CommentJpaRepository;
 import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.item.repository.ItemTrigramRepository;
+import ru.practicum.shareit.item.repository.ItemWithBookingProjection;
+import ru.practicum.shareit.item.search.ItemDocument;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.request.Request;
 import ru.practicum.shareit.request.service.RequestService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.OffsetPageRequest;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -48,6 +58,12 @@ class ItemServiceImplTest {
 	private ItemJpaRepository itemRepository;
 	@Mock
 	private CommentJpaRepository commentJpaRepository;
+	@Mock
+	private ItemTrigramRepository itemTrigramRepository;
+	@Mock
+	private ItemSearchIndex itemSearchIndex;
+	@Mock
+	private ItemNameSuggester itemNameSuggester;
 
 	private UserService userService;
 	private RequestService requestService;
@@ -59,8 +75,8 @@ class ItemServiceImplTest {
 	private ItemRequestDto itemRequestDto;
 	private Item item;
 	private Comment comment;
-	private Booking lastBooking;
-	private Booking nextBooking;
+	private BookingPointerDto lastBooking;
+	private BookingPointerDto nextBooking;
 	private CommentRequestDto commentRequestDto;
 
 	@BeforeEach
@@ -116,19 +132,9 @@ class ItemServiceImplTest {
 				.created(LocalDateTime.now())
 				.build();
 
-		lastBooking = Booking.builder()
-				.start(LocalDateTime.now().minusDays(2))
-				.end(LocalDateTime.now().minusDays(1))
-				.item(item)
-				.booker(requester)
-				.build();
+		lastBooking = new BookingPointerDto(1, requester.getId(), LocalDateTime.now().minusDays(2));
 
-		nextBooking = Booking.builder()
-				.start(LocalDateTime.now().plusDays(1))
-				.end(LocalDateTime.now().plusDays(2))
-				.item(item)
-				.booker(requester)
-				.build();
+		nextBooking = new BookingPointerDto(2, requester.getId(), LocalDateTime.now().plusDays(1));
 
 		commentRequestDto = CommentRequestDto.builder()
 				.text("Comment")
@@ -141,12 +147,29 @@ class ItemServiceImplTest {
 		// when
 		when(userService.getUserEntityById(2)).thenReturn(owner);
 		when(requestService.getRequestEntityById(any())).thenReturn(request);
-		when(itemRepository.save(any())).then(returnsFirstArg());
+		when(itemRepository.saveAndFlush(any())).then(returnsFirstArg());
 		ItemRequestDto addedItemRequestDto = itemService.addItem(itemRequestDto, 2);
 		// then
 		assertThat(addedItemRequestDto.getName(), equalTo(itemRequestDto.getName()));
 		assertThat(item.getOwner(), equalTo(owner));
-		verify(itemRepository).save(any());
+		verify(itemRepository).saveAndFlush(any());
+		verify(itemTrigramRepository).replaceTrigrams(any(), anyCollection());
+		verify(itemSearchIndex).index(any());
+		verify(itemNameSuggester).requestRebuild();
+	}
+
+	@Test
+	void addItem_whenIndexEnabled_thenTrigramsNotWritten() {
+		// when
+		when(itemSearchIndex.isEnabled()).thenReturn(true);
+		when(userService.getUserEntityById(2)).thenReturn(owner);
+		when(requestService.getRequestEntityById(any())).thenReturn(request);
+		when(itemRepository.save(any())).then(returnsFirstArg());
+		itemService.addItem(itemRequestDto, 2);
+		// then
+		verify(itemRepository, never()).saveAndFlush(any());
+		verify(itemTrigramRepository, never()).replaceTrigrams(any(), anyCollection());
+		verify(itemSearchIndex).index(any());
 	}
 
 	@Test
@@ -155,7 +178,7 @@ class ItemServiceImplTest {
 		doThrow(ResourceNotFoundException.class).when(userService).getUserEntityById(2);
 		// then
 		assertThrows(ResourceNotFoundException.class, () -> itemService.addItem(itemRequestDto, 2));
-		verify(itemRepository, never()).save(item);
+		verify(itemRepository, never()).saveAndFlush(item);
 	}
 
 
@@ -180,22 +203,38 @@ class ItemServiceImplTest {
 	void getItemById_whenItemFoundAndUserIsOwner_thenItemWithBookingsReturned() {
 		// when
 		when(itemRepository.findById(1)).thenReturn(Optional.of(item));
-		when(commentJpaRepository.findAllByItemOrderByCreatedDesc(item)).thenReturn(Collections.singletonList(comment));
+		when(commentJpaRepository.findAllByItemIdOrderByCreatedDesc(1)).thenReturn(Collections.singletonList(comment));
 		when(bookingService.getLastAndNextBookingOfItem(any())).thenReturn(Arrays.asList(lastBooking, nextBooking));
 		ItemWithBookingAndCommentsResponseDto itemDto = itemService.getItemById(1, 2);
 		// then
 		assertThat(itemDto.getName(), equalTo(item.getName()));
 		assertThat(itemDto.getComments().size(), equalTo(1));
 		assertThat(itemDto.getComments().get(0).getText(), equalTo(comment.getText()));
-		assertNotNull(itemDto.getLastBooking());
-		assertNotNull(itemDto.getNextBooking());
+		assertThat(itemDto.getLastBooking().getId(), equalTo(1));
+		assertThat(itemDto.getNextBooking().getId(), equalTo(2));
+	}
+
+	@Test
+	void getItemById_whenBothBookingsStarted_thenLatestIsLastAndNoNext() {
+		// given
+		BookingPointerDto started = new BookingPointerDto(2, requester.getId(), LocalDateTime.now().minusHours(1));
+		// when
+		when(itemRepository.findById(1)).thenReturn(Optional.of(item));
+		when(bookingService.getLastAndNextBookingOfItem(any())).thenReturn(List.of(started, lastBooking));
+		ItemWithBookingAndCommentsResponseDto itemDto = itemService.getItemById(1, 2);
+		// then
+		assertThat(itemDto.getLastBooking().getId(), equalTo(2));
+		assertNull(itemDto.getNextBooking());
 	}
 
 	@Test
 	void getItemById_whenItemFoundAndUserIsNotOwner_thenItemWithoutBookingsReturned() {
+		// given
+		item.setLastBookingId(1);
+		item.setNextBookingId(2);
 		// when
 		when(itemRepository.findById(1)).thenReturn(Optional.of(item));
-		when(commentJpaRepository.findAllByItemOrderByCreatedDesc(item)).thenReturn(Collections.singletonList(comment));
+		when(commentJpaRepository.findAllByItemIdOrderByCreatedDesc(1)).thenReturn(Collections.singletonList(comment));
 		ItemWithBookingAndCommentsResponseDto itemDto = itemService.getItemById(1, 3);
 		// then
 		assertThat(itemDto.getName(), equalTo(item.getName()));
@@ -217,31 +256,142 @@ class ItemServiceImplTest {
 	@Test
 	void getItems_whenOwnItemsFoundAndNoPagination_thenListReturned() {
 		// when
-		when(itemRepository.findAllByOwnerId(anyInt())).thenReturn(Collections.singletonList(item));
-		when(bookingService.findAllByItemOwnerId(anyInt())).thenReturn(Arrays.asList(lastBooking, nextBooking));
+		ItemWithBookingProjection projection = mock(ItemWithBookingProjection.class);
+		when(projection.getId()).thenReturn(1);
+		when(projection.getLastBookingId()).thenReturn(1);
+		when(projection.getLastBookingBookerId()).thenReturn(3);
+		when(projection.getNextBookingId()).thenReturn(null);
+		when(itemRepository.findAllWithBookingsByOwnerId(2, Pageable.unpaged()))
+				.thenReturn(Collections.singletonList(projection));
 		List<ItemWithBookingResponseDto> items = itemService.getItems(2, null, null);
 		// then
 		assertThat(items.size(), equalTo(1));
+		assertThat(items.get(0).getLastBooking(), equalTo(new BookingShortResponseDto(1, 3)));
+		assertNull(items.get(0).getNextBooking());
 	}
 
 	@Test
 	void getItems_whenOwnItemsFoundAndPagination_thenListReturned() {
 		// when
-		when(itemRepository.findAllByOwnerId(anyInt(), any())).thenReturn(new PageImpl<>(Collections.singletonList(item)));
-		when(bookingService.findAllByItems(anyList())).thenReturn(Arrays.asList(lastBooking, nextBooking));
-		List<ItemWithBookingResponseDto> items = itemService.getItems(2, 0, 10);
+		ItemWithBookingProjection projection = mock(ItemWithBookingProjection.class);
+		when(itemRepository.findAllWithBookingsByOwnerId(2, PageRequest.of(1, 10)))
+				.thenReturn(Collections.singletonList(projection));
+		List<ItemWithBookingResponseDto> items = itemService.getItems(2, 10, 10);
 		// then
 		assertThat(items.size(), equalTo(1));
 	}
 
 
 	@Test
-	void search_whenFound_thenListReturned() {
+	void search_whenIndexReadyAndFound_thenListReturnedFromIndex() {
 		// when
-		when(itemRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableIsTrue(any(), any())).thenReturn(Collections.singletonList(item));
-		List<ItemRequestDto> items = itemService.search("text", null, null);
+		when(itemSearchIndex.isReady()).thenReturn(true);
+		when(itemSearchIndex.search("text", null, 0, 10)).thenReturn(Collections.singletonList(ItemDocument.of(item)));
+		List<ItemRequestDto> items = itemService.search("text", null, 0, 10);
 		// then
 		assertThat(items.size(), equalTo(1));
+		assertThat(items.get(0).getName(), equalTo(item.getName()));
+		verify(itemRepository, never()).searchAvailable(any(), any(), any());
+		verify(itemRepository, never()).searchAvailableByTrigrams(any(), any(), any(), any(), any());
+	}
+
+	@Test
+	void search_whenNoSize_thenDefaultPageRequested() {
+		// when
+		when(itemSearchIndex.isReady()).thenReturn(true, false);
+		when(itemSearchIndex.search("text", null, null, 20)).thenReturn(Collections.singletonList(ItemDocument.of(item)));
+		when(itemRepository.searchAvailable("te", 0, OffsetPageRequest.of(null, 20)))
+				.thenReturn(Collections.singletonList(item));
+		List<ItemRequestDto> indexItems = itemService.search("text", null, null, null);
+		List<ItemRequestDto> databaseItems = itemService.search("te", null, null, null);
+		// then
+		assertThat(indexItems.size(), equalTo(1));
+		assertThat(databaseItems.size(), equalTo(1));
+	}
+
+	@Test
+	void search_whenIndexNotReadyAndTextHasTrigrams_thenListReturnedFromTrigramQuery() {
+		// when
+		when(itemSearchIndex.isReady()).thenReturn(false);
+		when(itemRepository.searchAvailableByTrigrams("Text", Set.of("tex", "ext"), 2, 5, OffsetPageRequest.of(3, 10)))
+				.thenReturn(Collections.singletonList(item));
+		List<ItemRequestDto> items = itemService.search("Text", 5, 3, 10);
+		// then
+		assertThat(items.size(), equalTo(1));
+	}
+
+	@Test
+	void search_whenIndexEnabledButNotReady_thenListReturnedFromLikeQuery() {
+		// when
+		when(itemSearchIndex.isReady()).thenReturn(false);
+		when(itemSearchIndex.isEnabled()).thenReturn(true);
+		when(itemRepository.searchAvailable("Text", 5, OffsetPageRequest.of(3, 10)))
+				.thenReturn(Collections.singletonList(item));
+		List<ItemRequestDto> items = itemService.search("Text", 5, 3, 10);
+		// then
+		assertThat(items.size(), equalTo(1));
+		verify(itemRepository, never()).searchAvailableByTrigrams(any(), any(), any(), any(), any());
+	}
+
+	@Test
+	void search_whenIndexNotReadyAndTextIsShort_thenListReturnedFromLikeQuery() {
+		// when
+		when(itemSearchIndex.isReady()).thenReturn(false);
+		when(itemRepository.searchAvailable("te", 0, OffsetPageRequest.of(null, 10)))
+				.thenReturn(Collections.singletonList(item));
+		List<ItemRequestDto> items = itemService.search("te", null, null, 10);
+		// then
+		assertThat(items.size(), equalTo(1));
+	}
+
+	@Test
+	void searchRanked_whenIndexReadyAndNoPagination_thenDefaultTopSizeRequested() {
+		// when
+		when(itemSearchIndex.isReady()).thenReturn(true);
+		when(itemSearchIndex.searchRanked("text", 0, 20)).thenReturn(Collections.singletonList(ItemDocument.of(item)));
+		List<ItemRequestDto> items = itemService.searchRanked("text", null, null);
+		// then
+		assertThat(items.size(), equalTo(1));
+	}
+
+	@Test
+	void searchRanked_whenPageBeyondRankedResults_thenIncorrectPageExceptionThrown() {
+		// then
+		assertThrows(IncorrectPageException.class,
+				() -> itemService.searchRanked("text", ItemSearchIndex.MAX_RANKED_RESULTS, 10));
+		verifyNoInteractions(itemSearchIndex);
+	}
+
+	@Test
+	void searchRanked_whenIndexNotReady_thenUnrankedPageReturnedFromRepository() {
+		// when
+		when(itemSearchIndex.isReady()).thenReturn(false);
+		when(itemRepository.searchAvailableByTrigrams(eq("text"), anyCollection(), eq(2), eq(0),
+				eq(OffsetPageRequest.of(0, 5))))
+				.thenReturn(Collections.singletonList(item));
+		List<ItemRequestDto> items = itemService.searchRanked("text", 0, 5);
+		// then
+		assertThat(items.size(), equalTo(1));
+		verify(itemSearchIndex, never()).searchRanked(any(), anyInt(), anyInt());
+	}
+
+	@Test
+	void searchFuzzy_whenIndexReady_thenListReturnedFromIndex() {
+		// when
+		when(itemSearchIndex.isReady()).thenReturn(true);
+		when(itemSearchIndex.searchFuzzy("drel", 0, 20)).thenReturn(Collections.singletonList(ItemDocument.of(item)));
+		List<ItemRequestDto> items = itemService.searchFuzzy("drel", null, null);
+		// then
+		assertThat(items.size(), equalTo(1));
+	}
+
+	@Test
+	void suggest_whenSizeIsNull_thenMaxSuggestionsRequested() {
+		// when
+		when(itemNameSuggester.suggest("дре", ItemNameSuggester.MAX_SUGGESTIONS)).thenReturn(List.of("Дрель"));
+		List<String> names = itemService.suggest("дре", null);
+		// then
+		assertThat(names, equalTo(List.of("Дрель")));
 	}
 
 	@Test
@@ -249,7 +399,7 @@ class ItemServiceImplTest {
 		// when
 		when(itemRepository.findById(anyInt())).thenReturn(Optional.of(item));
 		when(userService.getUserEntityById(anyInt())).thenReturn(requester);
-		when(bookingService.getFinishedBookingsByItemAndBooker(any(), any())).thenReturn(Collections.singletonList(lastBooking));
+		when(bookingService.hasFinishedBooking(any(), any())).thenReturn(true);
 		when(commentJpaRepository.save(any())).then(returnsFirstArg());
 		CommentResponseDto commentResponseDto = itemService.addComment(1, 1, commentRequestDto);
 		// then
@@ -262,7 +412,7 @@ class ItemServiceImplTest {
 		// when
 		when(itemRepository.findById(anyInt())).thenReturn(Optional.of(item));
 		when(userService.getUserEntityById(anyInt())).thenReturn(requester);
-		when(bookingService.getFinishedBookingsByItemAndBooker(any(), any())).thenReturn(Collections.emptyList());
+		when(bookingService.hasFinishedBooking(any(), any())).thenReturn(false);
 		// then
 		assertThrows(UnauthorizedCommentException.class, () -> itemService.addComment(1, 1, commentRequestDto));
 		verify(commentJpaRepository, never()).save(any());
@@ -285,19 +435,30 @@ class ItemServiceImplTest {
 	}
 
 	@Test
-	void getOtherRequestsItems() {
+	void getItemsByRequestList() {
 		// when
-		itemService.getOtherRequestsItems(1);
+		List<Request> requestList = Collections.singletonList(request);
+		itemService.getItemsByRequestList(requestList);
 		// then
-		verify(itemRepository).findAllByRequestRequesterIdNot(anyInt());
+		verify(itemRepository).findAllByRequestIn(requestList);
 	}
 
 	@Test
-	void getItemsByRequestList() {
+	void getAvailability_whenFromIsNotBeforeTo_thenIncorrectIntervalExceptionThrown() {
+		// given
+		LocalDateTime now = LocalDateTime.now();
+		// then
+		assertThrows(IncorrectIntervalException.class, () -> itemService.getAvailability(1, now, now));
+		verifyNoInteractions(bookingService);
+	}
+
+	@Test
+	void getAvailability_whenPeriodIsValid_thenFreeIntervalsOfBookingServiceReturned() {
+		// given
+		LocalDateTime now = LocalDateTime.now();
 		// when
-		List<Request> requestList = Collections.singletonList(request);
-		itemService.getItemsByRequestList(requestList);
+		itemService.getAvailability(1, now, now.plusDays(1));
 		// then
-		verify(itemRepository).findAllByRequestIn(requestList);
+		verify(bookingService).getFreeIntervals(1, now, now.plusDays(1));
 	}
-}
\ No newline at end of file
+}
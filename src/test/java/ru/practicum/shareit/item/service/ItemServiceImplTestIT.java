@@ -0,0 +1,82 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.item.ItemRequestDto;
+import ru.practicum.shareit.item.dto.item.ItemWithBookingAndCommentsResponseDto;
+import ru.practicum.shareit.item.entity.Comment;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManager;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@SpringBootTest(properties = {"db.name=test", "spring.jpa.properties.hibernate.generate_statistics=true",
+		"shareit.booking.event-relay-enabled=false"},
+		webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemServiceImplTestIT {
+
+	private final ItemService itemService;
+	private final UserService userService;
+	private final EntityManager em;
+
+	private int ownerId;
+	private int itemId;
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		ownerId = userService.addUser(UserDto.builder().name("Owner").email("owner@mail.org").build()).getId();
+		ItemRequestDto itemRequestDto = ItemRequestDto.builder()
+				.name("Item A")
+				.description("Item A")
+				.available(true)
+				.build();
+		itemId = itemService.addItem(itemRequestDto, ownerId).getId();
+		for (int i = 0; i < 3; i++) {
+			int authorId = userService.addUser(UserDto.builder().name("Author " + i).email("author" + i + "@mail.org")
+					.build()).getId();
+			em.persist(Comment.builder()
+					.text("Comment " + i)
+					.item(itemService.getItemEntityById(itemId))
+					.author(userService.getUserEntityById(authorId))
+					.build());
+		}
+		em.flush();
+		em.clear();
+		statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void getItemById_whenItemHasComments_thenItemCommentsAndAuthorsLoadedInTwoStatements() {
+		// when
+		ItemWithBookingAndCommentsResponseDto item = itemService.getItemById(itemId, ownerId + 100);
+		// then
+		assertThat(item.getComments().stream()
+						.map(ItemWithBookingAndCommentsResponseDto.ItemDetailedCommentDto::getAuthorName)
+						.collect(Collectors.toList()),
+				containsInAnyOrder("Author 0", "Author 1", "Author 2"));
+		assertThat(statistics.getPrepareStatementCount(), lessThanOrEqualTo(2L));
+	}
+
+	@Test
+	void getItemById_whenUserIsOwner_thenOnlyBookingsStatementAdded() {
+		// when
+		itemService.getItemById(itemId, ownerId);
+		// then
+		assertThat(statistics.getPrepareStatementCount(), lessThanOrEqualTo(3L));
+	}
+
+}
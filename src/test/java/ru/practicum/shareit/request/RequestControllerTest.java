@@ -8,10 +8,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.dto.RequestPageDto;
 import ru.practicum.shareit.request.dto.RequestRequestDto;
 import ru.practicum.shareit.request.dto.RequestResponseDto;
 import ru.practicum.shareit.request.service.RequestService;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
@@ -19,6 +24,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -94,8 +100,12 @@ class RequestControllerTest {
 	@SneakyThrows
 	void getOthersRequests() {
 		// when
+		when(requestService.getOthersRequests(1, 0, 10)).thenReturn(List.of());
+
 		mvc.perform(get("/requests/all")
 						.accept(MediaType.APPLICATION_JSON)
+						.param("from", "0")
+						.param("size", "10")
 						.header("X-Sharer-User-Id", 1))
 
 				// then
@@ -105,6 +115,67 @@ class RequestControllerTest {
 				);
 	}
 
+	@Test
+	@SneakyThrows
+	void getOthersRequests_whenNoPaging_thenFirstPageAndNextCursorReturned() {
+		// given
+		RequestResponseDto requestResponseDto = RequestResponseDto.builder().description("Item A request").build();
+		// when
+		when(requestService.getOthersRequestsPage(1, null, null))
+				.thenReturn(new RequestPageDto(List.of(requestResponseDto), "next"));
+
+		mvc.perform(get("/requests/all")
+						.accept(MediaType.APPLICATION_JSON)
+						.header("X-Sharer-User-Id", 1))
+
+				// then
+				.andExpectAll(
+						status().isOk(),
+						jsonPath("$", hasSize(1)),
+						header().string("X-Next-Cursor", "next")
+				);
+	}
+
+	@Test
+	@SneakyThrows
+	void getOthersRequests_whenLastPage_thenNoNextCursorHeader() {
+		// when
+		when(requestService.getOthersRequestsPage(1, "abc", 5)).thenReturn(new RequestPageDto(List.of(), null));
+
+		mvc.perform(get("/requests/all")
+						.accept(MediaType.APPLICATION_JSON)
+						.param("cursor", "abc")
+						.param("size", "5")
+						.header("X-Sharer-User-Id", 1))
+
+				// then
+				.andExpectAll(
+						status().isOk(),
+						header().doesNotExist("X-Next-Cursor")
+				);
+	}
+
+	@Test
+	@SneakyThrows
+	void getMatches_whenOwnerHasMatches_thenMatchesReturned() {
+		// when
+		when(requestService.getMatches(1, null, 5)).thenReturn(List.of(
+				new RequestMatchDto(2, "Нужна дрель", 3, "Дрель", LocalDateTime.now())));
+
+		mvc.perform(get("/requests/matches")
+						.accept(MediaType.APPLICATION_JSON)
+						.param("size", "5")
+						.header("X-Sharer-User-Id", 1))
+
+				// then
+				.andExpectAll(
+						status().isOk(),
+						jsonPath("$", hasSize(1)),
+						jsonPath("$[0].requestId", equalTo(2)),
+						jsonPath("$[0].itemName", equalTo("Дрель"))
+				);
+	}
+
 	@Test
 	@SneakyThrows
 	void getOthersRequests_whenIncorrectPaging_thenStatusIsBadRequest() {
@@ -0,0 +1,140 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+@DataJpaTest
+class RequestJpaRepositoryTest {
+
+	@Autowired
+	private TestEntityManager em;
+	@Autowired
+	private RequestJpaRepository repository;
+
+	private User user;
+	private User requester;
+	private LocalDateTime created;
+
+	@BeforeEach
+	void setUp() {
+		user = em.persist(User.builder().name("User").email("user@mail.org").build());
+		requester = em.persist(User.builder().name("Requester").email("requester@mail.org").build());
+		created = LocalDateTime.now().withNano(0);
+	}
+
+	@Test
+	void findFirstByRequesterIdNot_whenOwnRequestsExist_thenOnlyOthersRequestsInCreatedOrder() {
+		// given
+		Request second = persistRequest(requester, created.plusHours(1));
+		Request first = persistRequest(requester, created);
+		persistRequest(user, created.minusHours(1));
+		// when
+		List<Request> requests = repository.findFirstByRequesterIdNot(user.getId(), PageRequest.of(0, 10));
+		// then
+		assertThat(requests, contains(first, second));
+	}
+
+	@Test
+	void findFirstByRequesterIdNotAfter_whenCreatedTies_thenPageContinuesById() {
+		// given
+		Request first = persistRequest(requester, created);
+		Request second = persistRequest(requester, created);
+		Request third = persistRequest(requester, created.plusHours(1));
+		// when
+		List<Request> requests = repository.findFirstByRequesterIdNotAfter(user.getId(), first.getCreated(),
+				first.getId(), PageRequest.of(0, 1));
+		List<Request> nextRequests = repository.findFirstByRequesterIdNotAfter(user.getId(), second.getCreated(),
+				second.getId(), PageRequest.of(0, 10));
+		// then
+		assertThat(requests, contains(second));
+		assertThat(nextRequests, contains(third));
+	}
+
+	@Test
+	void insertMatchesOfRequest_whenItemsGiven_thenOnlyAvailableItemsOfOthersMatchedOnce() {
+		// given
+		User owner = em.persist(User.builder().name("Owner").email("owner@mail.org").build());
+		Request request = persistRequest(requester, created);
+		Item drill = em.persist(Item.builder().name("Дрель").description("").available(true).owner(owner).build());
+		Item hidden = em.persist(Item.builder().name("Дрель").description("").available(false).owner(owner).build());
+		Item own = em.persist(Item.builder().name("Дрель").description("").available(true).owner(requester).build());
+		List<Integer> itemIds = List.of(drill.getId(), hidden.getId(), own.getId(), drill.getId() + 1000);
+		// when
+		int inserted = repository.insertMatchesOfRequest(request.getId(), itemIds, created);
+		int insertedAgain = repository.insertMatchesOfRequest(request.getId(), itemIds, created);
+		List<RequestMatchProjection> matches = repository.findMatchesByOwnerId(owner.getId(), 0, 10);
+		// then
+		assertThat(inserted, equalTo(1));
+		assertThat(insertedAgain, equalTo(0));
+		assertThat(matches, hasSize(1));
+		assertThat(matches.get(0).getItemId(), equalTo(drill.getId()));
+		assertThat(matches.get(0).getDescription(), equalTo("Request"));
+		assertThat(matches.get(0).getCreated(), equalTo(created));
+	}
+
+	@Test
+	void insertMatchesOfItem_whenRequestsGiven_thenRequestsOfOwnerSkipped() {
+		// given
+		Request request = persistRequest(requester, created);
+		Request ownRequest = persistRequest(user, created);
+		Item drill = em.persist(Item.builder().name("Дрель").description("").available(true).owner(user).build());
+		// when
+		int inserted = repository.insertMatchesOfItem(drill.getId(), List.of(request.getId(), ownRequest.getId()),
+				created);
+		// then
+		assertThat(inserted, equalTo(1));
+		assertThat(repository.findMatchesByOwnerId(user.getId(), 0, 10).get(0).getRequestId(),
+				equalTo(request.getId()));
+	}
+
+	@Test
+	void findMatchesByOwnerId_whenItemHiddenOrRequestAnswered_thenMatchSkipped() {
+		// given
+		Request request = persistRequest(requester, created);
+		Request answered = persistRequest(requester, created);
+		Request open = persistRequest(requester, created);
+		Item drill = em.persist(Item.builder().name("Дрель").description("").available(true).owner(user).build());
+		Item saw = em.persist(Item.builder().name("Пила").description("").available(true).owner(user).build());
+		repository.insertMatchesOfItem(drill.getId(), List.of(request.getId(), answered.getId()), created);
+		repository.insertMatchesOfItem(saw.getId(), List.of(open.getId()), created);
+		// when
+		em.persist(Item.builder().name("Дрель").description("").available(true).owner(requester).request(answered)
+				.build());
+		saw.setAvailable(false);
+		em.flush();
+		List<RequestMatchProjection> matches = repository.findMatchesByOwnerId(user.getId(), 0, 10);
+		// then
+		assertThat(matches, hasSize(1));
+		assertThat(matches.get(0).getRequestId(), equalTo(request.getId()));
+		assertThat(matches.get(0).getItemId(), equalTo(drill.getId()));
+	}
+
+	@Test
+	void findAllOpen_whenRequestAnswered_thenOnlyUnansweredReturned() {
+		// given
+		Request answered = persistRequest(requester, created);
+		Request open = persistRequest(requester, created);
+		em.persist(Item.builder().name("Дрель").description("").available(true).owner(user).request(answered).build());
+		// then
+		assertThat(repository.findAllOpen(), contains(open));
+	}
+
+	private Request persistRequest(User requester, LocalDateTime created) {
+		return em.persist(Request.builder().description("Request").requester(requester).created(created).build());
+	}
+
+}
@@ -0,0 +1,184 @@
+package ru.practicum.shareit.request;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.practicum.shareit.item.dto.item.ItemRequestDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.RequestRequestDto;
+import ru.practicum.shareit.request.dto.RequestResponseDto;
+import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.user.UserJpaRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
+
+// Statements and connections are counted on the test thread only, so the schedulers don't disturb the counts
+@SpringBootTest(properties = {
+		"db.name=test",
+		"shareit.booking.event-relay-enabled=false",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+				"ru.practicum.shareit.request.RequestQueryCountTestIT$StatementCounter"
+}, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class RequestQueryCountTestIT {
+
+	private static final int REQUEST_COUNT = 5;
+	private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<>();
+
+	private final RequestService requestService;
+	private final UserService userService;
+	private final ItemService itemService;
+	private final UserJpaRepository userJpaRepository;
+
+	private final List<Integer> userIds = new ArrayList<>();
+	private int viewerId;
+	private int requesterId;
+	private int requestId;
+
+	@BeforeEach
+	void setUp() {
+		viewerId = addUser("Viewer");
+		int ownerId = addUser("Owner");
+		for (int i = 0; i < REQUEST_COUNT; i++) {
+			requesterId = addUser("Requester " + i);
+			for (int j = 0; j < 2; j++) {
+				requestId = requestService.addRequest(RequestRequestDto.builder().description("Request " + i).build(),
+						requesterId).getId();
+				itemService.addItem(ItemRequestDto.builder().name("Item " + i).description("Item " + i)
+						.available(true).requestId(requestId).build(), ownerId);
+			}
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		userJpaRepository.deleteAllByIdInBatch(userIds);
+	}
+
+	@Test
+	void getOwnRequests_whenRequestsHaveItems_thenThreeStatementsOnOneConnection() {
+		Counts counts = count(() -> requestService.getOwnRequests(requesterId),
+				requests -> assertThat(requests, hasSize(2)));
+
+		assertThat(counts.statements, equalTo(3));
+		assertThat(counts.connections, equalTo(1));
+	}
+
+	@Test
+	void getOthersRequests_whenOffsetGiven_thenThreeStatementsOnOneConnection() {
+		Counts counts = count(() -> requestService.getOthersRequests(viewerId, 0, 4 * REQUEST_COUNT),
+				requests -> assertThat(requests, hasSize(2 * REQUEST_COUNT)));
+
+		assertThat(counts.statements, equalTo(3));
+		assertThat(counts.connections, equalTo(1));
+	}
+
+	@Test
+	void getOthersRequestsPage_whenFirstPage_thenThreeStatementsOnOneConnection() {
+		Counts counts = count(() -> requestService.getOthersRequestsPage(viewerId, "", null).getRequests(),
+				requests -> assertThat(requests, hasSize(2 * REQUEST_COUNT)));
+
+		assertThat(counts.statements, equalTo(3));
+		assertThat(counts.connections, equalTo(1));
+	}
+
+	@Test
+	void getRequestById_whenRequestHasItems_thenThreeStatementsOnOneConnection() {
+		Counts counts = count(() -> List.of(requestService.getRequestById(requestId, viewerId)),
+				requests -> assertThat(requests.get(0).getItems(), hasSize(1)));
+
+		assertThat(counts.statements, equalTo(3));
+		assertThat(counts.connections, equalTo(1));
+	}
+
+	private int addUser(String name) {
+		int userId = userService.addUser(UserDto.builder().name(name).email(name.replace(' ', '_') + "@mail.org")
+				.build()).getId();
+		userIds.add(userId);
+		return userId;
+	}
+
+	// The answer is checked as well, so that the counts can't pass on an empty result
+	private static Counts count(Supplier<List<RequestResponseDto>> call,
+	                            Consumer<List<RequestResponseDto>> check) {
+		Counts counts = new Counts();
+		COUNTS.set(counts);
+		List<RequestResponseDto> requests;
+		try {
+			requests = call.get();
+		} finally {
+			COUNTS.remove();
+		}
+		check.accept(requests);
+		assertThat(requests, everyItem(hasProperty("items", hasSize(1))));
+		return counts;
+	}
+
+	private static class Counts {
+		private int statements;
+		private int connections;
+	}
+
+	public static class StatementCounter implements StatementInspector {
+
+		@Override
+		public String inspect(String sql) {
+			Counts counts = COUNTS.get();
+			if (counts != null) {
+				counts.statements++;
+			}
+			return sql;
+		}
+
+	}
+
+	@TestConfiguration
+	static class ConnectionCounterConfiguration {
+
+		@Bean
+		static BeanPostProcessor connectionCounter() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (!(bean instanceof DataSource)) {
+						return bean;
+					}
+					return new DelegatingDataSource((DataSource) bean) {
+						@Override
+						public Connection getConnection() throws SQLException {
+							Counts counts = COUNTS.get();
+							if (counts != null) {
+								counts.connections++;
+							}
+							return super.getConnection();
+						}
+					};
+				}
+			};
+		}
+
+	}
+
+}
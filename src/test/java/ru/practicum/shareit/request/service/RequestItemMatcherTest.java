@@ -0,0 +1,108 @@
+package ru.practicum.shareit.request.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemJpaRepository;
+import ru.practicum.shareit.request.Request;
+import ru.practicum.shareit.request.RequestJpaRepository;
+import ru.practicum.shareit.user.User;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestItemMatcherTest {
+
+	private ItemJpaRepository itemRepository;
+	private RequestJpaRepository requestJpaRepository;
+	private RequestItemMatcher matcher;
+	private User owner;
+	private User requester;
+
+	@BeforeEach
+	void setUp() {
+		itemRepository = mock(ItemJpaRepository.class);
+		requestJpaRepository = mock(RequestJpaRepository.class);
+		matcher = new RequestItemMatcher(itemRepository, requestJpaRepository);
+		owner = User.builder().id(1).name("Owner").email("owner@mail.org").build();
+		requester = User.builder().id(2).name("Requester").email("requester@mail.org").build();
+	}
+
+	@Test
+	void stems_whenWordsInflected_thenSameStems() {
+		assertThat(RequestItemMatcher.stems("Щётка для обуви"), equalTo(Set.of("щетк", "обув")));
+		assertThat(RequestItemMatcher.stems("Нужна щеткой, для обувь!"), equalTo(Set.of("нужн", "щетк", "обув")));
+	}
+
+	@Test
+	void matchItems_whenDescriptionCoversItemName_thenItemMatched() {
+		// given
+		matcher.indexItem(item(1, "Щётка для обуви", true));
+		matcher.indexItem(item(2, "Щётка для волос", true));
+		matcher.indexItem(item(3, "Дрель", true));
+		// when
+		Set<Integer> itemIds = matcher.matchItems(requester.getId(), "Хотел бы воспользоваться щёткой для обуви");
+		// then
+		assertThat(itemIds, equalTo(Set.of(1)));
+	}
+
+	@Test
+	void matchItems_whenItemUnavailableOrOwnedByRequester_thenItemNotMatched() {
+		// given
+		matcher.indexItem(item(1, "Дрель", true));
+		matcher.indexItem(item(1, "Дрель", false));
+		// then
+		assertThat(matcher.matchItems(requester.getId(), "Нужна дрель"), empty());
+		matcher.indexItem(item(2, "Дрель", true));
+		assertThat(matcher.matchItems(owner.getId(), "Нужна дрель"), empty());
+	}
+
+	@Test
+	void matchRequests_whenItemNameCoveredByOpenRequest_thenRequestMatched() {
+		// given
+		matcher.indexRequest(request(1, "Нужна дрель ударная"));
+		matcher.indexRequest(request(2, "Ищу ударную отвёртку"));
+		matcher.indexRequest(request(3, "Хотел бы воспользоваться щёткой для обуви"));
+		// when
+		Set<Integer> requestIds = matcher.matchRequests(owner.getId(), "Дрель ударная");
+		// then
+		assertThat(requestIds, equalTo(Set.of(1)));
+		assertThat(matcher.matchRequests(requester.getId(), "Дрель ударная"), empty());
+	}
+
+	@Test
+	void closeRequest_whenRequestAnswered_thenRequestNotMatchedAnyMore() {
+		// given
+		matcher.indexRequest(request(1, "Нужна дрель"));
+		// when
+		matcher.closeRequest(1);
+		// then
+		assertThat(matcher.matchRequests(owner.getId(), "Дрель"), empty());
+	}
+
+	@Test
+	void warmUp_whenItemsAndOpenRequestsStored_thenBothIndexed() {
+		// when
+		when(itemRepository.findAllByAvailableTrue()).thenReturn(List.of(item(1, "Дрель", true)));
+		when(requestJpaRepository.findAllOpen()).thenReturn(List.of(request(1, "Нужна дрель")));
+		matcher.warmUp();
+		// then
+		assertThat(matcher.matchItems(requester.getId(), "Дрель нужна"), equalTo(Set.of(1)));
+		assertThat(matcher.matchRequests(owner.getId(), "Дрель"), equalTo(Set.of(1)));
+	}
+
+	private Item item(Integer id, String name, boolean available) {
+		return Item.builder().id(id).name(name).description(name).available(available).owner(owner).build();
+	}
+
+	private Request request(int id, String description) {
+		return Request.builder().id(id).description(description).requester(requester).build();
+	}
+
+}
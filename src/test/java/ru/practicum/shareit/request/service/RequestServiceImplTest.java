@@ -9,27 +9,38 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.exception.IncorrectCursorException;
 import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.request.Request;
 import ru.practicum.shareit.request.RequestJpaRepository;
+import ru.practicum.shareit.request.dto.RequestMatchDto;
+import ru.practicum.shareit.request.dto.RequestPageDto;
 import ru.practicum.shareit.request.dto.RequestRequestDto;
 import ru.practicum.shareit.request.dto.RequestResponseDto;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.PageCursor;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +51,8 @@ class RequestServiceImplTest {
 
 	@Mock
 	private RequestJpaRepository requestJpaRepository;
+	@Mock
+	private RequestItemMatcher requestItemMatcher;
 
 	private UserService userService;
 	private ItemService itemService;
@@ -91,6 +104,57 @@ class RequestServiceImplTest {
 		// then
 		assertThat(requestResponseDto.getDescription(), equalTo(requestRequestDto.getDescription()));
 		verify(requestJpaRepository).save(any());
+		verify(requestJpaRepository, never()).insertMatchesOfRequest(any(), any(), any());
+		verify(requestItemMatcher).indexRequest(any());
+	}
+
+	@Test
+	void addRequest_whenItemsMatch_thenMatchesInserted() {
+		// when
+		when(userService.getUserEntityById(1)).thenReturn(requester);
+		when(requestJpaRepository.save(any())).then(returnsFirstArg());
+		when(requestItemMatcher.matchItems(1, "Request for item A")).thenReturn(Set.of(3));
+		requestService.addRequest(requestRequestDto, 1);
+		// then
+		verify(requestJpaRepository).insertMatchesOfRequest(eq(0), eq(Set.of(3)), any());
+	}
+
+	@Test
+	void matchItem_whenItemAnswersRequest_thenRequestClosedAndOtherRequestsMatched() {
+		// given
+		request.setId(1);
+		item.setId(3);
+		user.setId(4);
+		// when
+		when(requestItemMatcher.matchRequests(4, "Item A")).thenReturn(Set.of(1, 2));
+		requestService.matchItem(item);
+		// then
+		verify(requestItemMatcher).closeRequest(1);
+		verify(requestItemMatcher).indexItem(item);
+		verify(requestJpaRepository).insertMatchesOfItem(eq(3), eq(Set.of(2)), any());
+	}
+
+	@Test
+	void matchItem_whenItemUnavailable_thenNothingMatched() {
+		// given
+		item.setAvailable(false);
+		item.setRequest(null);
+		// when
+		requestService.matchItem(item);
+		// then
+		verify(requestItemMatcher).indexItem(item);
+		verify(requestItemMatcher, never()).matchRequests(any(), any());
+		verify(requestItemMatcher, never()).closeRequest(any());
+	}
+
+	@Test
+	void getMatches_whenNoPaging_thenDefaultPageRead() {
+		// when
+		when(userService.getUserEntityById(1)).thenReturn(user);
+		when(requestJpaRepository.findMatchesByOwnerId(1, 0, 20)).thenReturn(Collections.emptyList());
+		List<RequestMatchDto> matches = requestService.getMatches(1, null, null);
+		// then
+		assertThat(matches.size(), equalTo(0));
 	}
 
 	@Test
@@ -116,14 +180,54 @@ class RequestServiceImplTest {
 	}
 
 	@Test
-	void getOthersRequests_whenUserFoundAndNoPagination_thenRequestListReturned() {
+	void getOthersRequests_whenUserFoundAndNoPagination_thenFirstPageOfDefaultSizeReturned() {
 		// when
 		when(userService.getUserEntityById(anyInt())).thenReturn(user);
-		when(requestJpaRepository.findAllByRequesterIdNot(anyInt())).thenReturn(Collections.singletonList(request));
-		when(itemService.getOtherRequestsItems(anyInt())).thenReturn(Collections.singletonList(item));
+		when(requestJpaRepository.findFirstByRequesterIdNot(1, PageRequest.of(0, 21)))
+				.thenReturn(Collections.singletonList(request));
+		when(itemService.getItemsByRequestList(List.of(request))).thenReturn(Collections.singletonList(item));
 		List<RequestResponseDto> requestDtoList = requestService.getOthersRequests(1, null, null);
 		// then
 		assertThat(requestDtoList.size(), equalTo(1));
+		assertThat(requestDtoList.get(0).getItems().size(), equalTo(1));
+	}
+
+	@Test
+	void getOthersRequestsPage_whenMoreRequestsThanSize_thenNextCursorPointsAtLastRequest() {
+		// given
+		Request next = Request.builder().id(2).description("Request for item B").created(request.getCreated()).build();
+		request.setId(1);
+		// when
+		when(userService.getUserEntityById(anyInt())).thenReturn(user);
+		when(requestJpaRepository.findFirstByRequesterIdNot(1, PageRequest.of(0, 2))).thenReturn(List.of(request, next));
+		when(itemService.getItemsByRequestList(List.of(request))).thenReturn(Collections.emptyList());
+		RequestPageDto page = requestService.getOthersRequestsPage(1, "", 1);
+		// then
+		assertThat(page.getRequests().size(), equalTo(1));
+		assertThat(page.getNextCursor(), equalTo(new PageCursor(request.getCreated(), 1).encode()));
+	}
+
+	@Test
+	void getOthersRequestsPage_whenCursorGiven_thenRequestsAfterCursorRead() {
+		// given
+		String cursor = new PageCursor(request.getCreated(), 1).encode();
+		// when
+		when(userService.getUserEntityById(anyInt())).thenReturn(user);
+		when(requestJpaRepository.findFirstByRequesterIdNotAfter(1, request.getCreated(), 1, PageRequest.of(0, 11)))
+				.thenReturn(Collections.emptyList());
+		RequestPageDto page = requestService.getOthersRequestsPage(1, cursor, 10);
+		// then
+		assertThat(page.getRequests().size(), equalTo(0));
+		assertNull(page.getNextCursor());
+		verifyNoInteractions(itemService);
+	}
+
+	@Test
+	void getOthersRequestsPage_whenCursorIsMalformed_thenIncorrectCursorExceptionThrown() {
+		// when
+		when(userService.getUserEntityById(anyInt())).thenReturn(user);
+		// then
+		assertThrows(IncorrectCursorException.class, () -> requestService.getOthersRequestsPage(1, "not a cursor", 10));
 	}
 
 	@Test
@@ -14,7 +14,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-@SpringBootTest(properties = "db.name=test", webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@SpringBootTest(properties = {"db.name=test", "shareit.booking.event-relay-enabled=false"},
+		webEnvironment = SpringBootTest.WebEnvironment.NONE)
 @Transactional
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class UserServiceTestIT {